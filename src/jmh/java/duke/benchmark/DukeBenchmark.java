@@ -0,0 +1,51 @@
+package duke.benchmark;
+
+import duke.Duke;
+import duke.util.Stateful;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Commands end to end, from the input line to the output lines, through {@link Duke#getResponse(String)}.
+ * Only commands that leave the tasks unchanged are measured, so every iteration sees the same tasks.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class DukeBenchmark {
+    @Param({"1000", "100000"})
+    public int size;
+
+    @Param({"help", "find report 42", "due /before 2023-02-01", "next 10", "ls"})
+    public String input;
+
+    private String fileName;
+    private Duke duke;
+
+    @Setup
+    public void setUp() throws IOException {
+        fileName = TaskGenerator.save(TaskGenerator.generate(size, TaskGenerator.SEED));
+        duke = new Duke(fileName);
+    }
+
+    @TearDown
+    public void tearDown() {
+        duke.flush();
+        TaskGenerator.delete(fileName);
+    }
+
+    @Benchmark
+    public Stateful getResponse() {
+        return duke.getResponse(input);
+    }
+}
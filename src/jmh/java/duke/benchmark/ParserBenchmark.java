@@ -0,0 +1,42 @@
+package duke.benchmark;
+
+import duke.util.Parser;
+import duke.util.TokenQueue;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedList;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Splitting the arguments of a command into the arguments of its tokens.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class ParserBenchmark {
+    private static final Set<String> TOKENS = Set.of("/from", "/to");
+
+    @Param({"project meeting /from 2023-03-01 /to 2023-03-02",
+            "a much longer event description with many words /from 2023-03-01 /to 2023-03-02"})
+    public String arguments;
+
+    @Benchmark
+    public HashMap<String, Queue<String>> extractTokenArgs() {
+        return Parser.extractTokenArgs(TOKENS, TokenQueue.of(arguments));
+    }
+
+    @Benchmark
+    public HashMap<String, Queue<String>> extractTokenArgsFromList() {
+        return Parser.extractTokenArgs(TOKENS, new LinkedList<>(Arrays.asList(arguments.split(" "))));
+    }
+}
@@ -0,0 +1,73 @@
+package duke.benchmark;
+
+import duke.task.Task;
+import duke.util.Storage;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Saving and loading whole lists of tasks. Saves are written on the benchmark thread, so that the time to write the
+ * file is measured too.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 10)
+@Fork(1)
+public class StorageBenchmark {
+    @Param({"1000", "100000", "1000000"})
+    public int size;
+
+    private List<Task> tasks;
+    private String fileName;
+    private Storage storage;
+
+    @Setup
+    public void setUp() throws IOException {
+        tasks = TaskGenerator.generate(size, TaskGenerator.SEED);
+        fileName = TaskGenerator.save(tasks);
+        storage = new Storage();
+        storage.setMaxDelay(0);
+    }
+
+    @TearDown
+    public void tearDown() {
+        TaskGenerator.delete(fileName);
+    }
+
+    @Benchmark
+    public void save() {
+        storage.save(tasks, fileName);
+    }
+
+    @Benchmark
+    public List<Task> load() throws IOException, ClassNotFoundException {
+        return storage.load(fileName);
+    }
+
+    /**
+     * Loads the tasks and reads every one of them, which also decodes them from a mapped file.
+     */
+    @Benchmark
+    public void loadAll(Blackhole blackhole) throws IOException, ClassNotFoundException {
+        for (Task task : storage.load(fileName)) {
+            blackhole.consume(task);
+        }
+    }
+}
@@ -0,0 +1,85 @@
+package duke.benchmark;
+
+import duke.task.Deadline;
+import duke.task.Event;
+import duke.task.Task;
+import duke.task.ToDo;
+import duke.util.Storage;
+
+import java.io.File;
+import java.io.IOException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Generates tasks for the benchmarks: a mix of todos, deadlines and events, a quarter of them done, with descriptions
+ * drawn from a small vocabulary so that searches have a realistic share of matches. The same seed always generates
+ * the same tasks.
+ */
+public class TaskGenerator {
+    public static final long SEED = 2103;
+    private static final String[] WORDS = {
+        "read", "book", "return", "buy", "bread", "milk", "call", "mum", "finish", "report",
+        "plan", "trip", "pay", "bills", "clean", "room", "submit", "assignment", "meet", "team",
+    };
+    private static final LocalDate START = LocalDate.of(2023, 1, 1);
+    private static final List<String> SUFFIXES = List.of("", ".journal", ".index", ".history", ".tmp");
+
+    /**
+     * Generates the given number of tasks.
+     *
+     * @param count the number of tasks.
+     * @param seed  the seed of the tasks.
+     * @return the tasks.
+     */
+    public static List<Task> generate(int count, long seed) {
+        Random random = new Random(seed);
+        List<Task> tasks = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            String desc = WORDS[random.nextInt(WORDS.length)] + " " + WORDS[random.nextInt(WORDS.length)] + " " + i;
+            LocalDate date = START.plusDays(random.nextInt(730));
+            Task task;
+            switch (random.nextInt(3)) {
+            case 0:
+                task = new ToDo(desc);
+                break;
+            case 1:
+                task = new Deadline(desc, date);
+                break;
+            default:
+                task = new Event(desc, date, date.plusDays(random.nextInt(14)));
+                break;
+            }
+            tasks.add(random.nextInt(4) == 0 ? task.withDone(true) : task);
+        }
+        return tasks;
+    }
+
+    /**
+     * Saves the given tasks to a new temporary file, for benchmarks that load them.
+     *
+     * @param tasks the tasks.
+     * @return the name of the file.
+     * @throws IOException if the file cannot be created.
+     */
+    public static String save(List<Task> tasks) throws IOException {
+        File file = File.createTempFile("duke-bench", ".txt");
+        Storage storage = new Storage();
+        storage.save(tasks, file.getPath());
+        storage.flush();
+        return file.getPath();
+    }
+
+    /**
+     * Deletes a file created by {@link #save(List)}, and every file saved next to it.
+     *
+     * @param fileName the name of the file.
+     */
+    public static void delete(String fileName) {
+        for (String suffix : SUFFIXES) {
+            new File(fileName + suffix).delete();
+        }
+    }
+}
@@ -0,0 +1,140 @@
+package duke.benchmark;
+
+import duke.util.TaskList;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.LinkedList;
+import java.util.Queue;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * Listing, searching and deleting tasks.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class TaskListBenchmark {
+
+    /**
+     * Tasks that the benchmarks only read, loaded once per trial.
+     */
+    @State(Scope.Benchmark)
+    public static class Tasks {
+        @Param({"1000", "100000"})
+        public int size;
+
+        private String fileName;
+        private TaskList taskList;
+
+        @Setup
+        public void setUp() throws IOException, ClassNotFoundException {
+            fileName = TaskGenerator.save(TaskGenerator.generate(size, TaskGenerator.SEED));
+            taskList = new TaskList(fileName);
+        }
+
+        @TearDown
+        public void tearDown() {
+            taskList.flush();
+            TaskGenerator.delete(fileName);
+        }
+    }
+
+    /**
+     * Tasks that are reloaded before every deletion, with the indexes of every other task to delete.
+     */
+    @State(Scope.Benchmark)
+    public static class Deletions {
+        @Param({"1000", "100000"})
+        public int size;
+
+        @Param({"100", "1000"})
+        public int count;
+
+        private String fileName;
+        private TaskList taskList;
+        private String indexes;
+
+        @Setup(Level.Trial)
+        public void save() throws IOException {
+            fileName = TaskGenerator.save(TaskGenerator.generate(size, TaskGenerator.SEED));
+            indexes = IntStream.range(0, Math.min(count, size / 2))
+                    .mapToObj(i -> String.valueOf(2 * i + 1))
+                    .collect(Collectors.joining(" "));
+        }
+
+        @Setup(Level.Invocation)
+        public void load() throws IOException, ClassNotFoundException {
+            taskList = new TaskList(fileName);
+            taskList.setSaveDeferred(true);
+        }
+
+        @TearDown(Level.Trial)
+        public void tearDown() {
+            TaskGenerator.delete(fileName);
+        }
+    }
+
+    /**
+     * Tasks that are reopened before every search, so that every record has yet to be indexed and decoded.
+     */
+    @State(Scope.Benchmark)
+    public static class Reopened {
+        @Param({"100000", "1000000"})
+        public int size;
+
+        private String fileName;
+        private TaskList taskList;
+
+        @Setup(Level.Trial)
+        public void save() throws IOException {
+            fileName = TaskGenerator.save(TaskGenerator.generate(size, TaskGenerator.SEED));
+        }
+
+        @Setup(Level.Invocation)
+        public void load() throws IOException, ClassNotFoundException {
+            taskList = new TaskList(fileName);
+        }
+
+        @TearDown(Level.Trial)
+        public void tearDown() {
+            TaskGenerator.delete(fileName);
+        }
+    }
+
+    @Benchmark
+    public Queue<String> stringify(Tasks tasks) {
+        return tasks.taskList.stringify();
+    }
+
+    @Benchmark
+    public Queue<String> findShortTerm(Tasks tasks) {
+        return tasks.taskList.find("42");
+    }
+
+    @Benchmark
+    public Queue<String> findLongTerm(Tasks tasks) {
+        return tasks.taskList.find("report 42");
+    }
+
+    @Benchmark
+    public Queue<String> findShortTermAfterOpen(Reopened reopened) {
+        return reopened.taskList.find("42");
+    }
+
+    @Benchmark
+    public Queue<String> deleteMany(Deletions deletions) {
+        return deletions.taskList.delete(new LinkedList<>(Arrays.asList(deletions.indexes.split(" "))));
+    }
+}
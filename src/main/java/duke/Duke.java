@@ -10,23 +10,42 @@ package duke;
 
 import duke.command.Command;
 import duke.command.NestCommand;
+import duke.util.Metrics;
+import duke.util.OutputBuffer;
+import duke.util.Page;
 import duke.util.Parser;
+import duke.util.Query;
 import duke.util.State;
 import duke.util.Stateful;
 import duke.util.TaskList;
+import duke.util.TokenQueue;
 import duke.util.Ui;
 
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.FileDescriptor;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.PrintStream;
+import java.net.InetSocketAddress;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.AbstractMap;
 import java.util.ArrayList;
-import java.util.Arrays;
 import java.util.HashMap;
-import java.util.LinkedList;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 import java.util.Queue;
 import java.util.Scanner;
 import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.function.Consumer;
 import java.util.function.Function;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 /**
  * The main class of the Duke program.
@@ -34,8 +53,14 @@ import java.util.stream.Collectors;
 public class Duke {
 
     public static final String DEFAULT_PATH = "data.txt";
+    private static final int SCRIPT_BUFFER_SIZE = 1 << 16;
+    private static final int SCRIPT_QUEUE_SIZE = 1024;
+    private static final Set<String> LIST_TOKENS = Stream.concat(Page.TOKENS.stream(), Query.TOKENS.stream())
+            .collect(Collectors.toUnmodifiableSet());
     private final Ui ui;
     private final Parser parser;
+    private final TaskList taskList;
+    private final HashMap<String, String> aliases = new HashMap<>();
 
     private State state;
 
@@ -44,9 +69,18 @@ public class Duke {
     }
 
     public Duke(String filename) {
+        this(filename, new Ui());
+    }
+
+    /**
+     * Creates a Duke that stores its tasks in the given file, and prints with the given Ui.
+     *
+     * @param filename The name of the file to store tasks in.
+     * @param ui       The Ui to print with.
+     */
+    public Duke(String filename, Ui ui) {
 
-        this.ui = new Ui();
-        TaskList taskList;
+        this.ui = ui;
         TaskList temp;
         try {
             temp = new TaskList(filename);
@@ -54,19 +88,35 @@ public class Duke {
             ui.loadError(e);
             temp = new TaskList(new ArrayList<>());
         }
-        taskList = temp;
+        this.taskList = temp;
 
         Command[] commands = new Command[]{
             new Command("exit", "exit the app",
-                    stateful -> stateful.next("Goodbye.", stateful.getState().next(true))
+                    stateful -> {
+                        taskList.flush();
+                        return stateful.next("Goodbye.", stateful.getState().next(true));
+                    }
             ),
             new Command("help",
                     "show this help message",
                     (stateful, input) -> stateful.next(ui.getHelpMsg())
             ),
             new Command("list",
-                    "list tasks",
-                    stateful -> stateful.next(taskList.stringify())
+                    "list tasks, or a /page of /size tasks, filtered by /type /done /before /match and /sort-ed",
+                    (stateful, input) -> {
+                        HashMap<String, Queue<String>> args = Parser.extractTokenArgs(LIST_TOKENS, input);
+                        String base = args.containsKey("") ? TokenQueue.join(args.get("")).strip() : "";
+                        if (!base.isEmpty() && !base.equals("explain")) {
+                            throw new IllegalArgumentException("Unexpected argument: " + base);
+                        }
+                        Query query = Query.of(args);
+                        if (query.isEmpty() && base.isEmpty()) {
+                            taskList.stringify(stateful.getSink(), Page.of(args));
+                        } else {
+                            taskList.query(query, !base.isEmpty(), stateful.getSink(), Page.of(args));
+                        }
+                        return stateful;
+                    }
             ),
             new NestCommand("add",
                     "add task",
@@ -74,7 +124,7 @@ public class Duke {
                         new Command("todo",
                                 "add todo task",
                                 (stateful, input) -> {
-                                    String desc = String.join(" ", input);
+                                    String desc = TokenQueue.join(input);
                                     return stateful.next(taskList.addTodo(desc));
                                 }
                         ),
@@ -112,9 +162,68 @@ public class Duke {
                     "delete task at index",
                     (stateful, input) -> stateful.next(taskList.delete(input))
             ),
+            new Command("undo",
+                    "undo the last change to the tasks",
+                    stateful -> stateful.next(taskList.undo())
+            ),
+            new Command("redo",
+                    "redo the last change undone",
+                    stateful -> stateful.next(taskList.redo())
+            ),
             new Command("find",
-                    "find tasks by description",
-                    (stateful, input) -> stateful.next(taskList.find(String.join(" ", input)))
+                    "find tasks by description, or a /page of /size of them",
+                    (stateful, input) -> {
+                        HashMap<String, Queue<String>> args = Parser.extractTokenArgs(Page.TOKENS, input);
+                        taskList.find(args.containsKey("") ? TokenQueue.join(args.get("")) : "",
+                                stateful.getSink(), Page.of(args));
+                        return stateful;
+                    }
+            ),
+            new NestCommand("due",
+                    "find deadlines and events by date",
+                    new Command[]{
+                            new Command("/before",
+                                    "find tasks due before date",
+                                    (stateful, input) -> stateful.next(taskList.dueBefore(TokenQueue.join(input)))
+                            ),
+                    }
+            ),
+            new Command("between",
+                    "find deadlines and events between dates",
+                    (stateful, input) -> {
+                        HashMap<String, Queue<String>> args = Parser.extractTokenArgs(Set.of("/from", "/to"), input);
+                        if (args.containsKey("") && !args.get("").isEmpty()) {
+                            throw new IllegalArgumentException("Unexpected argument: " + TokenQueue.join(args.get("")));
+                        }
+                        return stateful.next(taskList.between(
+                                args.containsKey("/from") ? TokenQueue.join(args.get("/from")) : null,
+                                args.containsKey("/to") ? TokenQueue.join(args.get("/to")) : null));
+                    }
+            ),
+            new Command("next",
+                    "list the next undone deadlines and events",
+                    (stateful, input) -> stateful.next(taskList.next(TokenQueue.join(input)))
+            ),
+            new Command("stats",
+                    "show the count, latency and allocations of each command, or /on, /off or /reset the metrics",
+                    (stateful, input) -> {
+                        String option = TokenQueue.join(input);
+                        switch (option) {
+                        case "":
+                            return stateful.next(Metrics.report());
+                        case "/on":
+                            Metrics.setEnabled(true);
+                            return stateful.next("Metrics on.");
+                        case "/off":
+                            Metrics.setEnabled(false);
+                            return stateful.next("Metrics off.");
+                        case "/reset":
+                            Metrics.reset();
+                            return stateful.next("Metrics reset.");
+                        default:
+                            throw new IllegalArgumentException("Unknown option: " + option);
+                        }
+                    }
             ),
             new NestCommand("alias",
                     "add / remove command alias",
@@ -136,15 +245,15 @@ public class Duke {
                                     "add alias",
                                     (stateful, input) -> {
                                         HashMap<String, String> args = Parser.extractTokensWithJoin(Set.of("/is"), input);
-                                        stateful.getState().getAliases().put(args.get(""), args.get("/is"));
+                                        stateful.getState().addAlias(args.get(""), args.get("/is"));
                                         return stateful.next("alias added: " + args.get("") + " -> " + args.get("/is"));
                                     }
                             ),
                             new Command("/delete",
                                     "delete alias",
                                     (stateful, input) -> {
-                                        String name = String.join(" ", input);
-                                        String orig = stateful.getState().getAliases().remove(name);
+                                        String name = TokenQueue.join(input);
+                                        String orig = stateful.getState().removeAlias(name);
                                         return stateful.next("alias deleted: " + name + " -> " + orig);
                                     }
                             ),
@@ -165,7 +274,6 @@ public class Duke {
             }
             return stateful.next(Ui.getHelpMsg(commandList));
         });
-        HashMap<String, String> aliases = new HashMap<>();
         aliases.put("q", "exit");
         aliases.put("quit", "exit");
         aliases.put("ls", "list");
@@ -178,54 +286,286 @@ public class Duke {
         aliases.put("rm", "delete");
         aliases.put("search", "find");
         aliases.put("rename", "alias");
-        this.state = new State(false, aliases);
+        this.state = this.newState();
         this.parser = new Parser(commands);
     }
 
     /**
      * The start of execution of the Duke program.
+     * With {@code --script [file]}, the commands in the file (or the standard input, if no file is given) are run as
+     * a batch instead, see {@link #runScript(BufferedReader, int)}. With {@code --save-every <n>}, the tasks are also
+     * saved after every n commands of the batch. With {@code --serve [port]}, Duke serves clients over TCP instead,
+     * see {@link Server}. In every mode, {@code --history <n>} sets the number of changes that can be undone, where 0
+     * keeps no history, and {@code --columnar} stores the tasks in columns, which saves the most memory along with
+     * {@code --history 0}.
      *
      * @param args The command line arguments.
      */
     public static void main(String[] args) {
-        new Duke().run();
+        boolean isScript = false;
+        String scriptFile = null;
+        Integer port = null;
+        int saveInterval = 0;
+        Integer historyLimit = null;
+        boolean isColumnar = false;
+        try {
+            for (int i = 0; i < args.length; i++) {
+                if (args[i].equals("--script")) {
+                    isScript = true;
+                    if (i + 1 < args.length && !args[i + 1].startsWith("--")) {
+                        scriptFile = args[++i];
+                    }
+                } else if (args[i].equals("--serve")) {
+                    port = i + 1 < args.length && !args[i + 1].startsWith("--")
+                            ? Integer.parseInt(args[++i])
+                            : Server.DEFAULT_PORT;
+                } else if (args[i].equals("--save-every") && i + 1 < args.length) {
+                    saveInterval = Integer.parseInt(args[++i]);
+                } else if (args[i].equals("--history") && i + 1 < args.length) {
+                    historyLimit = Integer.parseInt(args[++i]);
+                    if (historyLimit < 0) {
+                        throw new IllegalArgumentException("Invalid history limit: " + historyLimit);
+                    }
+                } else if (args[i].equals("--columnar")) {
+                    isColumnar = true;
+                } else {
+                    throw new IllegalArgumentException("Unknown argument: " + args[i]);
+                }
+            }
+        } catch (IllegalArgumentException e) {
+            System.out.println("\t[ERROR] " + e.getMessage()
+                    + "\n\tUsage: duke [--script [<file>]] [--save-every <n>] | [--serve [<port>]]"
+                    + " [--history <n>] [--columnar]");
+            System.exit(2);
+        }
+        if (port != null) {
+            Duke duke = new Duke().withOptions(historyLimit, isColumnar);
+            try (Server server = new Server(duke, new InetSocketAddress(port))) {
+                Runtime.getRuntime().addShutdownHook(new Thread(server::close));
+                System.out.println("\tServing on port " + server.getPort());
+                server.run();
+            } catch (IOException e) {
+                System.out.println("\t[ERROR] Cannot serve: " + e);
+                System.exit(1);
+            }
+            return;
+        }
+        if (!isScript) {
+            new Duke().withOptions(historyLimit, isColumnar).run();
+            return;
+        }
+        PrintStream out = new PrintStream(new BufferedOutputStream(new FileOutputStream(FileDescriptor.out),
+                SCRIPT_BUFFER_SIZE), false);
+        int failures;
+        try (BufferedReader input = scriptFile == null
+                ? new BufferedReader(new InputStreamReader(System.in))
+                : Files.newBufferedReader(Paths.get(scriptFile))) {
+            failures = new Duke(DEFAULT_PATH, new Ui(out)).withOptions(historyLimit, isColumnar)
+                    .runScript(input, saveInterval);
+        } catch (IOException e) {
+            System.out.println("\t[ERROR] Cannot read script: " + e);
+            failures = 1;
+        }
+        System.exit(failures > 0 ? 1 : 0);
+    }
+
+    /**
+     * Applies the options given on the command line to the tasks.
+     *
+     * @param historyLimit The number of changes that can be undone, or null to keep the default.
+     * @param isColumnar   Whether the tasks are stored in columns.
+     * @return This Duke.
+     */
+    private Duke withOptions(Integer historyLimit, boolean isColumnar) {
+        if (historyLimit != null) {
+            this.taskList.setHistoryLimit(historyLimit);
+        }
+        if (isColumnar) {
+            this.taskList.setColumnar(true);
+        }
+        return this;
     }
 
     private void run() {
         this.ui.printIntro();
         Scanner scanner = new Scanner(System.in);
         while (scanner.hasNextLine()) {
-            Stateful stateful = this.getResponse(scanner.nextLine());
+            Stateful stateful = this.getResponse(scanner.nextLine(), this.state, ui::printLine);
             this.state = stateful.getState();
-            ui.print(String.join("\n",stateful.getOutputs()));
+            ui.print(stateful.getOutputs());
             if (this.state.isDoQuit()) {
                 break;
             }
         }
         scanner.close();
+        this.flush();
     }
 
     /**
-     * Get the response from the input.
+     * Runs every command in the given input as a batch, until the input ends or a command exits.
+     * Lines are read and tokenized on another thread while earlier lines are executed, and blank lines are skipped.
+     * The output is printed (without prompts) through the Ui, which is only flushed at the end. Changes to the tasks
+     * are saved every {@code saveInterval} commands, or only once at the end. A failing command does not stop the
+     * batch, instead every failure is listed in a summary at the end.
      *
-     * @param input The input string.
-     * @return The response.
+     * @param input        The input to read commands from.
+     * @param saveInterval The number of commands after which the tasks are saved, or 0 to only save at the end.
+     * @return The number of commands that failed.
      */
-    public Stateful getResponse(String input) {
+    public int runScript(BufferedReader input, int saveInterval) {
+        BlockingQueue<Map.Entry<Integer, Parser.TokenizedLine>> lines = new ArrayBlockingQueue<>(SCRIPT_QUEUE_SIZE);
+        Map.Entry<Integer, Parser.TokenizedLine> end = new AbstractMap.SimpleEntry<>(0, null);
+        List<String> errors = new ArrayList<>();
+        Thread reader = new Thread(() -> {
+            int lineNumber = 0;
+            try {
+                String line;
+                while ((line = input.readLine()) != null) {
+                    lineNumber++;
+                    if (!line.isBlank()) {
+                        lines.put(new AbstractMap.SimpleEntry<>(lineNumber, this.parser.tokenize(line)));
+                    }
+                }
+            } catch (IOException e) {
+                synchronized (errors) {
+                    errors.add("line " + (lineNumber + 1) + ": cannot be read: " + e);
+                }
+            } catch (InterruptedException e) {
+                return;
+            }
+            try {
+                lines.put(end);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }, "script-reader");
+        reader.setDaemon(true);
+        reader.start();
+
+        List<String> failures = new ArrayList<>();
+        int count = 0;
+        this.taskList.setSaveDeferred(true);
         try {
-            Queue<String> words = new LinkedList<>(Arrays.asList(input.split("\\s")));
-            Command cmd = this.parser.parseCommand(words.remove(), this.state.getAliases());
-            if (cmd.hasSubCommands()) {
-                if (words.isEmpty()) {
-                    throw new IllegalArgumentException("Missing argument for command: "  + cmd.getName());
+            for (Map.Entry<Integer, Parser.TokenizedLine> entry = lines.take(); entry != end; entry = lines.take()) {
+                Parser.TokenizedLine line = entry.getValue();
+                Stateful stateful;
+                try {
+                    stateful = this.parser.plan(line, this.state)
+                            .apply(new Stateful(new OutputBuffer(), ui::printLine, this.state));
+                } catch (Exception e) {
+                    failures.add("line " + entry.getKey() + ": " + line.getLine() + " -> " + e);
+                    stateful = Duke.error(e, this.state);
+                }
+                this.state = stateful.getState();
+                ui.print(stateful.getOutputs());
+                count++;
+                if (saveInterval > 0 && count % saveInterval == 0) {
+                    this.taskList.save();
+                }
+                if (this.state.isDoQuit()) {
+                    break;
                 }
-                Function<Stateful, Stateful> composedCommands = this.parser.parseArgs(words, (NestCommand) cmd);
-                return composedCommands.apply(new Stateful(new LinkedList<>(), this.state));
             }
-            return cmd.execute(new Stateful(new LinkedList<>(), this.state), words);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            reader.interrupt();
+            this.taskList.setSaveDeferred(false);
+        }
+        synchronized (errors) {
+            failures.addAll(errors);
+        }
+        OutputBuffer summary = new OutputBuffer();
+        summary.add(String.format("%d command%s run, %d failed%s", count, count == 1 ? "" : "s", failures.size(),
+                failures.isEmpty() ? "." : ":"));
+        failures.forEach(failure -> summary.add("\t" + failure));
+        ui.print(summary);
+        ui.flush();
+        this.flush();
+        return failures.size();
+    }
+
+    /**
+     * Waits until every change to the tasks has been saved.
+     */
+    public void flush() {
+        this.taskList.flush();
+    }
+
+    /**
+     * Returns a new program state with the default aliases, for another session sharing the tasks of this Duke.
+     *
+     * @return The new state.
+     */
+    public State newState() {
+        return new State(false, this.aliases);
+    }
+
+    public Stateful getResponse(String input) {
+        return this.getResponse(input, this.state);
+    }
+
+    /**
+     * Get the response from the input, with the output written to the given buffer.
+     *
+     * @param input   The input string.
+     * @param outputs The buffer to write the output to, e.g. one {@link OutputBuffer#acquire() acquired} for reuse.
+     * @return The response.
+     */
+    public Stateful getResponse(String input, OutputBuffer outputs) {
+        return this.getResponse(input, this.state, outputs);
+    }
+
+    /**
+     * Get the response from the input, in the given session.
+     *
+     * @param input The input string.
+     * @param state The state of the session.
+     * @return The response, with the new state of the session.
+     */
+    public Stateful getResponse(String input, State state) {
+        return this.getResponse(input, state, new OutputBuffer());
+    }
+
+    /**
+     * Get the response from the input, in the given session, with the output written to the given buffer.
+     *
+     * @param input   The input string.
+     * @param state   The state of the session.
+     * @param outputs The buffer to write the output to.
+     * @return The response, with the new state of the session.
+     */
+    public Stateful getResponse(String input, State state, OutputBuffer outputs) {
+        try {
+            Function<Stateful, Stateful> operation = this.parser.parseLine(input, state);
+            return operation.apply(new Stateful(outputs, state));
         } catch (Exception e) {
-            return new Stateful(new LinkedList<>(Arrays.asList(e.toString().split("\\r?\\n"))),
-                    this.state);
+            outputs.addLines(e.toString());
+            return new Stateful(outputs, state);
         }
     }
+
+    /**
+     * Get the response from the input, in the given session, streaming the output to the given sink as it is written.
+     * Only the lines of an error are left in the outputs of the response.
+     *
+     * @param input The input string.
+     * @param state The state of the session.
+     * @param sink  The consumer of each line of output.
+     * @return The response, with the new state of the session.
+     */
+    public Stateful getResponse(String input, State state, Consumer<String> sink) {
+        try {
+            Function<Stateful, Stateful> operation = this.parser.parseLine(input, state);
+            return operation.apply(new Stateful(new OutputBuffer(), sink, state));
+        } catch (Exception e) {
+            return Duke.error(e, state);
+        }
+    }
+
+    private static Stateful error(Exception e, State state) {
+        OutputBuffer outputs = new OutputBuffer();
+        outputs.addLines(e.toString());
+        return new Stateful(outputs, state);
+    }
 }
\ No newline at end of file
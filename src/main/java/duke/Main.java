@@ -15,6 +15,7 @@ import java.io.IOException;
 public class Main extends Application {
 
     private final Duke duke = new Duke();
+    private MainWindow mainWindow;
 
     @Override
     public void start(Stage stage) {
@@ -23,10 +24,20 @@ public class Main extends Application {
             AnchorPane ap = fxmlLoader.load();
             Scene scene = new Scene(ap);
             stage.setScene(scene);
-            fxmlLoader.<MainWindow>getController().setDuke(duke);
+            mainWindow = fxmlLoader.getController();
+            mainWindow.setDuke(duke);
             stage.show();
         } catch (IOException e) {
             e.printStackTrace();
         }
     }
+
+    @Override
+    public void stop() {
+        if (mainWindow != null) {
+            // the command being run may still change the tasks
+            mainWindow.shutDown();
+        }
+        duke.flush();
+    }
 }
@@ -0,0 +1,281 @@
+package duke;
+
+import duke.util.State;
+import duke.util.Stateful;
+import duke.util.Ui;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.StandardSocketOptions;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedSelectorException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
+import java.util.concurrent.CountDownLatch;
+
+/**
+ * Serves Duke to any number of line-oriented TCP clients (e.g. {@code nc localhost 4000}), from a single thread.
+ * Every line that a client sends is run as a command through {@link Duke#getResponse(String, State)}, and answered
+ * with the output formatted as by the {@link Ui}. Each connection has its own {@link State}, so aliases and exiting
+ * only affect the client that made them, while the tasks are shared by every client. Exiting closes the connection.
+ * <p>
+ * Connections are non-blocking and multiplexed by a {@link Selector}, so the commands of every client are run one at
+ * a time, in the order that they are read. A client that sends commands faster than it reads their output stops being
+ * read until its output has been sent. As no two commands run at once, the tasks are not put in
+ * {@linkplain duke.util.TaskList#setConcurrent(boolean) concurrent mode}.
+ */
+public class Server implements Closeable {
+    public static final int DEFAULT_PORT = 4000;
+    private static final int BUFFER_SIZE = 8192;
+    /**
+     * The longest line that a client can send, in bytes.
+     */
+    private static final int MAX_LINE = 1 << 16;
+    /**
+     * The amount of output, in bytes, above which no more commands of a client are run until the output is sent.
+     */
+    private static final int MAX_PENDING_OUTPUT = 1 << 16;
+
+    private final Duke duke;
+    private final Selector selector;
+    private final ServerSocketChannel serverChannel;
+    private final CountDownLatch stopped = new CountDownLatch(1);
+    private volatile boolean isRunning = true;
+    private volatile Thread thread;
+
+    /**
+     * Creates a server of the given Duke, listening on the given address.
+     *
+     * @param duke    The Duke to run commands with.
+     * @param address The address to listen on, with port 0 for any free port.
+     * @throws IOException If the address cannot be listened on.
+     */
+    public Server(Duke duke, InetSocketAddress address) throws IOException {
+        this.duke = duke;
+        this.selector = Selector.open();
+        this.serverChannel = ServerSocketChannel.open();
+        try {
+            this.serverChannel.bind(address);
+            this.serverChannel.configureBlocking(false);
+            this.serverChannel.register(this.selector, SelectionKey.OP_ACCEPT);
+        } catch (IOException e) {
+            this.serverChannel.close();
+            this.selector.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Returns the port that the server listens on.
+     *
+     * @return The port.
+     */
+    public int getPort() {
+        return this.serverChannel.socket().getLocalPort();
+    }
+
+    /**
+     * Serves clients until the server is closed, then closes every connection and saves the tasks.
+     *
+     * @throws IOException If the server cannot accept connections.
+     */
+    public void run() throws IOException {
+        this.thread = Thread.currentThread();
+        try {
+            while (this.isRunning) {
+                this.selector.select();
+                Iterator<SelectionKey> keys = this.selector.selectedKeys().iterator();
+                while (keys.hasNext()) {
+                    SelectionKey key = keys.next();
+                    keys.remove();
+                    if (key.isAcceptable()) {
+                        this.accept();
+                    } else {
+                        this.serve(key);
+                    }
+                }
+            }
+        } catch (ClosedSelectorException e) {
+            // closed while selecting
+        } finally {
+            try {
+                this.shutDown();
+            } finally {
+                this.stopped.countDown();
+            }
+        }
+    }
+
+    /**
+     * Stops the server, and waits until it has stopped if it is running on another thread.
+     */
+    @Override
+    public void close() {
+        this.isRunning = false;
+        this.selector.wakeup();
+        Thread serving = this.thread;
+        if (serving == null) {
+            try {
+                this.shutDown();
+            } catch (IOException e) {
+                // nothing was served
+            }
+        } else if (serving != Thread.currentThread()) {
+            try {
+                this.stopped.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    private void accept() throws IOException {
+        SocketChannel client;
+        while ((client = this.serverChannel.accept()) != null) {
+            client.configureBlocking(false);
+            client.setOption(StandardSocketOptions.TCP_NODELAY, true);
+            client.register(this.selector, SelectionKey.OP_READ, new Connection(this.duke.newState()));
+        }
+    }
+
+    private void serve(SelectionKey key) {
+        Connection connection = (Connection) key.attachment();
+        SocketChannel client = (SocketChannel) key.channel();
+        try {
+            if (key.isReadable() && client.read(connection.input) < 0) {
+                connection.isInputClosed = true;
+            }
+            boolean isAnswered;
+            do {
+                isAnswered = connection.respond();
+                connection.output.flip();
+                client.write(connection.output);
+                connection.output.compact();
+            } while (!isAnswered && connection.output.position() == 0);
+
+            boolean isOutputPending = connection.output.position() > 0;
+            if (!isOutputPending && (connection.isClosing || connection.isInputClosed)) {
+                this.disconnect(key);
+                return;
+            }
+            boolean isReading = !connection.isClosing && !connection.isInputClosed
+                    && connection.output.position() < MAX_PENDING_OUTPUT;
+            key.interestOps((isReading ? SelectionKey.OP_READ : 0) | (isOutputPending ? SelectionKey.OP_WRITE : 0));
+        } catch (IOException e) {
+            this.disconnect(key);
+        }
+    }
+
+    private void disconnect(SelectionKey key) {
+        key.cancel();
+        try {
+            key.channel().close();
+        } catch (IOException e) {
+            // the connection is dropped either way
+        }
+    }
+
+    private synchronized void shutDown() throws IOException {
+        if (this.selector.isOpen()) {
+            for (SelectionKey key : this.selector.keys()) {
+                if (key.attachment() instanceof Connection) {
+                    Connection connection = (Connection) key.attachment();
+                    connection.output.flip();
+                    try {
+                        ((SocketChannel) key.channel()).write(connection.output);
+                    } catch (IOException e) {
+                        // the connection is closed below either way
+                    }
+                }
+                key.channel().close();
+            }
+            this.selector.close();
+        }
+        this.serverChannel.close();
+        this.duke.flush();
+    }
+
+    private static ByteBuffer grow(ByteBuffer buffer, int capacity) {
+        buffer.flip();
+        return ByteBuffer.allocate(capacity).put(buffer);
+    }
+
+    /**
+     * The buffered input and output of a client, and the state of its session.
+     */
+    private class Connection {
+        private ByteBuffer input = ByteBuffer.allocate(BUFFER_SIZE);
+        private ByteBuffer output = ByteBuffer.allocate(BUFFER_SIZE);
+        private State state;
+        private boolean isInputClosed;
+        private boolean isClosing;
+
+        private Connection(State state) {
+            this.state = state;
+        }
+
+        /**
+         * Runs the commands of the complete lines read so far, until the output is full or the session exits.
+         *
+         * @return true if every complete line has been run, false if some are left for when the output is sent.
+         */
+        private boolean respond() {
+            this.input.flip();
+            byte[] bytes = this.input.array();
+            int scanned = this.input.position();
+            while (!this.isClosing) {
+                int end = scanned;
+                while (end < this.input.limit() && bytes[end] != '\n') {
+                    end++;
+                }
+                if (end == this.input.limit() && !(this.isInputClosed && end > this.input.position())) {
+                    break;
+                }
+                if (this.output.position() >= MAX_PENDING_OUTPUT) {
+                    this.input.compact();
+                    return false;
+                }
+                int start = this.input.position();
+                int length = end > start && bytes[end - 1] == '\r' ? end - start - 1 : end - start;
+                this.input.position(Math.min(end + 1, this.input.limit()));
+                scanned = this.input.position();
+                String line = new String(bytes, start, length, StandardCharsets.UTF_8);
+                if (!line.isBlank()) {
+                    this.run(line);
+                }
+            }
+            this.input.compact();
+            if (!this.input.hasRemaining()) {
+                if (this.input.capacity() < MAX_LINE) {
+                    this.input = Server.grow(this.input, this.input.capacity() * 2);
+                } else {
+                    this.write("\t[ERROR] Line too long, the limit is " + MAX_LINE + " bytes.\n");
+                    this.isClosing = true;
+                }
+            }
+            return true;
+        }
+
+        private void run(String line) {
+            Stateful response = Server.this.duke.getResponse(line, this.state,
+                    output -> this.write("\t" + output + "\n"));
+            this.state = response.getState();
+            this.write(Ui.format(response.getOutputs()));
+            this.isClosing = this.state.isDoQuit();
+        }
+
+        private void write(String text) {
+            byte[] bytes = text.getBytes(StandardCharsets.UTF_8);
+            if (this.output.remaining() < bytes.length) {
+                this.output = Server.grow(this.output,
+                        Math.max(this.output.capacity() * 2, this.output.position() + bytes.length));
+            }
+            this.output.put(bytes);
+        }
+    }
+}
@@ -112,18 +112,6 @@ public class Command {
         this.function = function;
     }
 
-    /**
-     * Transforms the command's state+output bifunction into a partial state function by supplying one of the arguments
-     * (the input). Used to simplify the composition and execution of multiple commands.
-     *
-     * @param input The input, as a list of words.
-     * @return      The partial function upon supplying the input.
-     * @see         duke.util.Parser#parseArgs(Queue, NestCommand) 
-     */
-    public Function<Stateful, Stateful> getFurnishedFunction(Queue<String> input) {
-        return stateful -> function.apply(stateful, input);
-    }
-
     /**
      * Utility method to create a name-dictionary of commands from an array of commands.
      *
@@ -0,0 +1,72 @@
+package duke.command;
+
+import duke.util.Metrics;
+import duke.util.Stateful;
+import duke.util.TokenQueue;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * A parsed input line, compiled into the sequence of commands that it executes and the arguments that each of them
+ * takes. The arguments are not stored with the plan, but referred to by the index of the segment of the line that
+ * they come from, so that one plan can be executed for every line of the same shape.
+ * <p>
+ * A line is split into segments of words: each (sub)command token is a segment of its own, and so is every run of
+ * other words between them.
+ *
+ * <p>
+ * Every line that is run goes through a plan, so this is where the {@link Metrics} of the commands are recorded, under
+ * the names of the commands that the plan executes (e.g. {@code "mark /done"}).
+ *
+ * @see duke.util.Parser#parseLine(String, duke.util.State)
+ */
+public class CommandPlan {
+    private final List<Command> commands;
+    private final List<int[]> inputs;
+    private final String name;
+
+    /**
+     * Creates a new CommandPlan.
+     *
+     * @param commands The commands to be executed, in order.
+     * @param inputs   The range of segments (first inclusive, last exclusive) making up the input of each command, or
+     *                 null where a command takes no input.
+     */
+    public CommandPlan(List<Command> commands, List<int[]> inputs) {
+        assert commands.size() == inputs.size();
+        this.commands = commands;
+        this.inputs = inputs;
+        this.name = commands.stream().map(Command::getName).collect(Collectors.joining(" "));
+    }
+
+    /**
+     * Executes the commands of the plan, with the arguments taken from the segments of a line.
+     *
+     * @param stateful The parameters (and program state) to pass to the first command.
+     * @param words    The words of the line, after the command name.
+     * @param segments The position of the first word of each segment, followed by the number of words.
+     * @return         The output of the commands (and any side effects).
+     */
+    public Stateful execute(Stateful stateful, TokenQueue words, int[] segments) {
+        if (!Metrics.isEnabled()) {
+            return this.run(stateful, words, segments);
+        }
+        long start = System.nanoTime();
+        long allocated = Metrics.allocatedBytes();
+        try {
+            return this.run(stateful, words, segments);
+        } finally {
+            Metrics.record(name, start, Metrics.allocatedBytes() - allocated);
+        }
+    }
+
+    private Stateful run(Stateful stateful, TokenQueue words, int[] segments) {
+        for (int i = 0; i < commands.size(); i++) {
+            int[] input = inputs.get(i);
+            TokenQueue slice = input == null ? null : words.slice(segments[input[0]], segments[input[1]]);
+            stateful = commands.get(i).execute(stateful, slice);
+        }
+        return stateful;
+    }
+}
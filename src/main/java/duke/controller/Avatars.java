@@ -0,0 +1,21 @@
+package duke.controller;
+
+import javafx.scene.image.Image;
+
+import java.util.Objects;
+
+/**
+ * The pictures of the user and Duke, decoded once and shared by every window and dialog box.
+ * They are decoded when first used, once the JavaFX toolkit has started.
+ */
+public class Avatars {
+    public static final Image USER = Avatars.load("/images/user.png");
+    public static final Image DUKE = Avatars.load("/images/duke.png");
+
+    private Avatars() {
+    }
+
+    private static Image load(String path) {
+        return new Image(Objects.requireNonNull(Avatars.class.getResourceAsStream(path)));
+    }
+}
@@ -1,61 +1,69 @@
 package duke.controller;
 
-import javafx.collections.FXCollections;
-import javafx.collections.ObservableList;
-import javafx.fxml.FXML;
-import javafx.fxml.FXMLLoader;
+import javafx.geometry.Insets;
 import javafx.geometry.Pos;
-import javafx.scene.Node;
 import javafx.scene.control.Label;
 import javafx.scene.image.Image;
 import javafx.scene.image.ImageView;
 import javafx.scene.layout.HBox;
 
-import java.io.IOException;
-import java.util.Collections;
-
 /**
- * An example of a custom control using FXML.
  * This control represents a dialog box consisting of an ImageView to represent the speaker's face and a label
  * containing text from the speaker.
  */
 public class DialogBox extends HBox {
-    @FXML
-    private Label dialog;
-    @FXML
-    private ImageView displayPicture;
+    private static final double PICTURE_SIZE = 99.0;
+    private static final double PREF_WIDTH = 400.0;
+    private static final Insets PADDING = new Insets(15.0, 5.0, 15.0, 5.0);
 
-    private DialogBox(String text, Image img) {
-        try {
-            FXMLLoader fxmlLoader = new FXMLLoader(MainWindow.class.getResource("/view/DialogBox.fxml"));
-            fxmlLoader.setController(this);
-            fxmlLoader.setRoot(this);
-            fxmlLoader.load();
-        } catch (IOException e) {
-            e.printStackTrace();
-        }
+    private final Label dialog = new Label();
+    private final ImageView displayPicture = new ImageView();
 
-        dialog.setText(text);
-        displayPicture.setImage(img);
-    }
+    private boolean isFlipped;
 
-    public static DialogBox getUserDialog(String text, Image img) {
-        return new DialogBox(text, img);
+    /**
+     * Creates an empty dialog box, to be filled by {@link #show(String, Image, boolean)}.
+     * The layout is built in code rather than loaded from FXML, so that creating a dialog box does not parse anything.
+     */
+    DialogBox() {
+        dialog.setWrapText(true);
+        displayPicture.setFitHeight(PICTURE_SIZE);
+        displayPicture.setFitWidth(PICTURE_SIZE);
+        displayPicture.setPickOnBounds(true);
+        displayPicture.setPreserveRatio(true);
+        this.setAlignment(Pos.TOP_RIGHT);
+        this.setMaxSize(Double.MAX_VALUE, Double.MAX_VALUE);
+        this.setPrefWidth(PREF_WIDTH);
+        this.setPadding(PADDING);
+        this.getChildren().setAll(dialog, displayPicture);
     }
 
-    public static DialogBox getDukeDialog(String text, Image img) {
-        var db = new DialogBox(text, img);
-        db.flip();
-        return db;
+    /**
+     * Shows the given message in this dialog box, so that one box can be reused for any message.
+     *
+     * @param text       The text of the message.
+     * @param img        The picture of the speaker.
+     * @param isFromUser Whether the message is from the user, with the picture on the right, or from Duke.
+     */
+    void show(String text, Image img, boolean isFromUser) {
+        dialog.setText(text);
+        displayPicture.setImage(img);
+        if (isFromUser == isFlipped) {
+            this.flip();
+        }
     }
 
     /**
-     * Flips the dialog box such that the ImageView is on the left and text on the right.
+     * Flips the dialog box such that the ImageView is on the left and text on the right, or back.
      */
     private void flip() {
-        ObservableList<Node> tmp = FXCollections.observableArrayList(this.getChildren());
-        Collections.reverse(tmp);
-        getChildren().setAll(tmp);
-        setAlignment(Pos.TOP_LEFT);
+        isFlipped = !isFlipped;
+        if (isFlipped) {
+            getChildren().setAll(displayPicture, dialog);
+            setAlignment(Pos.TOP_LEFT);
+        } else {
+            getChildren().setAll(dialog, displayPicture);
+            setAlignment(Pos.TOP_RIGHT);
+        }
     }
 }
@@ -1,37 +1,63 @@
 package duke.controller;
 
 import duke.Duke;
+import duke.util.OutputBuffer;
 import duke.util.Stateful;
+import javafx.application.Platform;
+import javafx.collections.FXCollections;
+import javafx.collections.ObservableList;
 import javafx.fxml.FXML;
 import javafx.scene.control.Button;
-import javafx.scene.control.ScrollPane;
+import javafx.scene.control.ListView;
 import javafx.scene.control.TextField;
-import javafx.scene.image.Image;
 import javafx.scene.layout.AnchorPane;
-import javafx.scene.layout.VBox;
 import javafx.stage.Stage;
 
-import java.util.Objects;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Controller for MainWindow. Provides the layout for the other controls.
+ * <p>
+ * The chat history is a {@link ListView} of {@link Message}s, which only lays out the cells in view, so it stays
+ * responsive however long the session. The oldest messages are dropped beyond {@value #MAX_HISTORY} messages.
+ * <p>
+ * Commands are run on a worker thread rather than the JavaFX application thread, so that slow commands (e.g. saving or
+ * searching many tasks) do not freeze the window. A {@link Message#pending() pending} reply is shown until the
+ * command finishes. The worker runs the commands one at a time, in the order they were entered.
  */
 public class MainWindow extends AnchorPane {
-    private final Image userImage = new Image(Objects.requireNonNull(this.getClass().getResourceAsStream("/images/user.png")));
-    private final Image dukeImage = new Image(Objects.requireNonNull(this.getClass().getResourceAsStream("/images/duke.png")));
-    @FXML
-    private ScrollPane scrollPane;
+    /**
+     * The number of messages kept in the chat history.
+     */
+    public static final int MAX_HISTORY = 50_000;
+    private static final long SHUTDOWN_TIMEOUT = 10;
+
+    private final ObservableList<Message> messages = FXCollections.observableArrayList();
+    private final ExecutorService worker = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "duke-worker");
+        thread.setDaemon(true);
+        return thread;
+    });
     @FXML
-    private VBox dialogContainer;
+    private ListView<Message> dialogList;
     @FXML
     private TextField userInput;
     @FXML
     private Button sendButton;
     private Duke duke;
+    /**
+     * Whether a command has exited, after which the commands still queued are not run.
+     */
+    private volatile boolean isClosed;
 
     @FXML
     public void initialize() {
-        scrollPane.vvalueProperty().bind(dialogContainer.heightProperty());
+        dialogList.setItems(messages);
+        dialogList.setCellFactory(listView -> new MessageCell(listView, Avatars.USER, Avatars.DUKE));
+        dialogList.setFocusTraversable(false);
     }
 
     public void setDuke(Duke d) {
@@ -39,24 +65,89 @@ public class MainWindow extends AnchorPane {
     }
 
     /**
-     * Creates two dialog boxes, one echoing user input and the other containing Duke's reply and then appends them to
-     * the dialog container. Clears the user input after processing.
+     * Adds two messages to the chat history, one echoing user input and the other a pending reply, and runs the
+     * command on the worker thread. The reply replaces the pending one once the command is done. Clears the user
+     * input straight away, so that further commands can be entered meanwhile.
      */
     @FXML
     private void handleUserInput() {
         String input = userInput.getText();
-        Stateful response = duke.getResponse(input);
-        assert response.getOutputs() != null && response.getOutputs().size() > 0;
-        String output = String.join("\n", response.getOutputs());
-        dialogContainer.getChildren()
-                .addAll(DialogBox.getUserDialog(input, userImage),
-                        DialogBox.getDukeDialog(output, dukeImage)
-                );
+        Message pending = Message.pending();
+        this.addMessages(new Message(input, true), pending);
         userInput.clear();
-        if (response.getState().isDoQuit()) {
-            userInput.setEditable(false);
-            Stage stage = (Stage) scrollPane.getScene().getWindow();
-            stage.close();
+        try {
+            worker.execute(() -> this.respond(input, pending));
+        } catch (RejectedExecutionException e) {
+            // the window is closing, so the command is dropped
+        }
+    }
+
+    /**
+     * Runs a command on the worker thread, then shows its reply on the JavaFX application thread.
+     */
+    private void respond(String input, Message pending) {
+        if (isClosed) {
+            return;
+        }
+        OutputBuffer outputs = OutputBuffer.acquire();
+        Stateful response;
+        String output;
+        try {
+            response = duke.getResponse(input, outputs);
+            assert outputs.size() > 0;
+            output = outputs.join();
+        } finally {
+            outputs.release();
+        }
+        boolean isQuitting = response.getState().isDoQuit();
+        if (isQuitting) {
+            isClosed = true;
+            worker.shutdown();
+        }
+        Platform.runLater(() -> {
+            this.replace(pending, new Message(output, false));
+            if (isQuitting) {
+                userInput.setEditable(false);
+                Stage stage = (Stage) dialogList.getScene().getWindow();
+                stage.close();
+            }
+        });
+    }
+
+    /**
+     * Stops running commands, and waits for the command being run (if any) to finish. The command is not interrupted,
+     * so that it does not leave the tasks half saved.
+     */
+    public void shutDown() {
+        isClosed = true;
+        worker.shutdown();
+        try {
+            worker.awaitTermination(SHUTDOWN_TIMEOUT, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void addMessages(Message... added) {
+        int excess = messages.size() + added.length - MAX_HISTORY;
+        if (excess > 0) {
+            // dropped in one change, so the list is only updated once
+            messages.remove(0, excess);
+        }
+        messages.addAll(added);
+        dialogList.scrollTo(messages.size() - 1);
+    }
+
+    private void replace(Message pending, Message reply) {
+        // pending replies are among the latest messages, unless they have been dropped from the history
+        for (int i = messages.size() - 1; i >= 0; i--) {
+            if (messages.get(i) == pending) {
+                messages.set(i, reply);
+                if (i == messages.size() - 1) {
+                    dialogList.scrollTo(i);
+                }
+                return;
+            }
         }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,42 @@
+package duke.controller;
+
+/**
+ * A message in the chat history of the {@link MainWindow}, from either the user or Duke.
+ */
+public class Message {
+    /**
+     * The text shown in place of a reply that is still being worked out.
+     */
+    public static final String PENDING_TEXT = "...";
+
+    private final String text;
+    private final boolean isFromUser;
+
+    /**
+     * Creates a new Message.
+     *
+     * @param text       The text of the message.
+     * @param isFromUser Whether the user sent the message, rather than Duke.
+     */
+    public Message(String text, boolean isFromUser) {
+        this.text = text;
+        this.isFromUser = isFromUser;
+    }
+
+    /**
+     * Returns a placeholder for the reply of Duke to a command that is still running.
+     *
+     * @return The pending message.
+     */
+    public static Message pending() {
+        return new Message(PENDING_TEXT, false);
+    }
+
+    public String getText() {
+        return text;
+    }
+
+    public boolean isFromUser() {
+        return isFromUser;
+    }
+}
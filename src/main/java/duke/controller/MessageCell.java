@@ -0,0 +1,47 @@
+package duke.controller;
+
+import javafx.scene.control.ListCell;
+import javafx.scene.control.ListView;
+import javafx.scene.image.Image;
+
+/**
+ * A cell of the chat history, which shows a {@link Message} in a {@link DialogBox}.
+ * The ListView only creates enough cells to fill its height, and reuses them for whichever messages are scrolled
+ * into view, so each cell loads its DialogBox once however many messages there are.
+ */
+public class MessageCell extends ListCell<Message> {
+    /**
+     * The width left for the vertical scroll bar and the padding of the list.
+     */
+    private static final double SCROLL_BAR_WIDTH = 20;
+
+    private final DialogBox dialogBox = new DialogBox();
+    private final Image userImage;
+    private final Image dukeImage;
+
+    /**
+     * Creates a new MessageCell.
+     *
+     * @param listView  The list of the cell, whose width the dialog box fills.
+     * @param userImage The picture of the user.
+     * @param dukeImage The picture of Duke.
+     */
+    public MessageCell(ListView<Message> listView, Image userImage, Image dukeImage) {
+        this.userImage = userImage;
+        this.dukeImage = dukeImage;
+        // sized to the list rather than the text, so that long lines wrap instead of scrolling sideways
+        this.setPrefWidth(0);
+        this.dialogBox.prefWidthProperty().bind(listView.widthProperty().subtract(SCROLL_BAR_WIDTH));
+    }
+
+    @Override
+    protected void updateItem(Message message, boolean isEmpty) {
+        super.updateItem(message, isEmpty);
+        if (isEmpty || message == null) {
+            this.setGraphic(null);
+            return;
+        }
+        this.dialogBox.show(message.getText(), message.isFromUser() ? userImage : dukeImage, message.isFromUser());
+        this.setGraphic(this.dialogBox);
+    }
+}
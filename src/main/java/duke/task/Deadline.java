@@ -6,6 +6,7 @@ import java.time.LocalDate;
  * A task implementation with a due date.
  */
 public class Deadline extends Task {
+    private static final long serialVersionUID = 2897085728421635351L;
 
     /**
      * The due date of the task.
@@ -19,12 +20,31 @@ public class Deadline extends Task {
      * @param by   the due date of the task
      */
     public Deadline(String desc, String by) {
+        this(desc, LocalDate.parse(by));
+    }
+
+    /**
+     * Constructs a new Deadline with the given description and due date.
+     *
+     * @param desc the description of the task
+     * @param by   the due date of the task
+     */
+    public Deadline(String desc, LocalDate by) {
         super(desc);
-        this.by = LocalDate.parse(by);
+        this.by = by;
+    }
+
+    /**
+     * Returns the due date of the task.
+     *
+     * @return the due date of the task
+     */
+    public LocalDate getBy() {
+        return by;
     }
 
     @Override
-    public String toString() {
-        return "[D]" + super.toString() + " (by: " + by.format(DATE_FORMAT) + ")";
+    protected String render() {
+        return "[D]" + super.render() + " (by: " + by.format(DATE_FORMAT) + ")";
     }
 }
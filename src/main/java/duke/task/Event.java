@@ -6,6 +6,7 @@ import java.time.LocalDate;
  * A task implementation with a start and end date.
  */
 public class Event extends Task {
+    private static final long serialVersionUID = -8826143197965742514L;
 
     /**
      * The start date of the task.
@@ -25,15 +26,44 @@ public class Event extends Task {
      * @param to   the end date of the task
      */
     public Event(String desc, String from, String to) {
+        this(desc, LocalDate.parse(from), LocalDate.parse(to));
+    }
+
+    /**
+     * Constructs a new Event with the given description and start and end dates.
+     *
+     * @param desc the description of the task
+     * @param from the start date of the task
+     * @param to   the end date of the task
+     */
+    public Event(String desc, LocalDate from, LocalDate to) {
         super(desc);
-        this.from = LocalDate.parse(from);
-        this.to = LocalDate.parse(to);
+        this.from = from;
+        this.to = to;
+    }
+
+    /**
+     * Returns the start date of the task.
+     *
+     * @return the start date of the task
+     */
+    public LocalDate getFrom() {
+        return from;
+    }
+
+    /**
+     * Returns the end date of the task.
+     *
+     * @return the end date of the task
+     */
+    public LocalDate getTo() {
+        return to;
     }
 
     @Override
-    public String toString() {
+    protected String render() {
         return String.format("[E]%s (from: %s) (to: %s)",
-                super.toString(),
+                super.render(),
                 from.format(DATE_FORMAT),
                 to.format(DATE_FORMAT)
         );
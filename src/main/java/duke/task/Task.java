@@ -13,8 +13,11 @@ import java.time.format.DateTimeFormatter;
  * @see duke.Duke
  * @see TaskList
  */
-public class Task implements Serializable {
-
+public class Task implements Serializable, Cloneable {
+    /**
+     * Pinned so that lists written by Java serialization (before {@link duke.util.TaskCodec}) can still be migrated.
+     */
+    private static final long serialVersionUID = -2281444104592347424L;
     static final DateTimeFormatter DATE_FORMAT = DateTimeFormatter.ofPattern("eee, d MMM uuuu");
     /**
      * The description of the task.
@@ -24,6 +27,10 @@ public class Task implements Serializable {
      * The status of the task.
      */
     private boolean isDone;
+    /**
+     * The string representation of the task, kept from the first time it is rendered until the task is marked.
+     */
+    private transient String rendered;
 
     /**
      * Constructs a new task with the given description.
@@ -67,10 +74,48 @@ public class Task implements Serializable {
      */
     public void mark(boolean isDone){
         this.isDone = isDone;
+        this.rendered = null;
+    }
+
+    /**
+     * Returns a copy of the task with the given status, leaving this task unchanged.
+     *
+     * @param isDone The status of the copy.
+     * @return The copy of the task.
+     */
+    public Task withDone(boolean isDone) {
+        try {
+            Task copy = (Task) super.clone();
+            copy.isDone = isDone;
+            copy.rendered = null;
+            return copy;
+        } catch (CloneNotSupportedException e) {
+            throw new AssertionError(e);
+        }
     }
 
+    /**
+     * Returns the string representation of the task, rendering it only if it has not been rendered since the task
+     * was created or last marked.
+     *
+     * @return The string representation of the task.
+     */
     @Override
     public String toString() {
+        String rendered = this.rendered;
+        if (rendered == null) {
+            rendered = this.render();
+            this.rendered = rendered;
+        }
+        return rendered;
+    }
+
+    /**
+     * Renders the string representation of the task. Subclasses add their type and dates around it.
+     *
+     * @return The string representation of the task.
+     */
+    protected String render() {
         return "[" + (this.isDone ? "X" : " ") + "] " + desc;
     }
 
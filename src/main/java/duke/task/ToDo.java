@@ -4,6 +4,7 @@ package duke.task;
  * A simple task implementation with only a description and a status.
  */
 public class ToDo extends Task {
+    private static final long serialVersionUID = -1727259874366420953L;
 
     /**
      * Constructs a new ToDo with the given description.
@@ -15,7 +16,7 @@ public class ToDo extends Task {
     }
 
     @Override
-    public String toString() {
-        return "[T]" + super.toString();
+    protected String render() {
+        return "[T]" + super.render();
     }
 }
@@ -0,0 +1,332 @@
+package duke.util;
+
+import duke.task.Deadline;
+import duke.task.Event;
+import duke.task.Task;
+import duke.task.ToDo;
+
+import java.time.LocalDate;
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.RandomAccess;
+
+/**
+ * A list of tasks stored by field, in parallel arrays (columns), rather than as a {@link Task} object each.
+ * The type of every task is a byte, its status a bit, its dates epoch days, and its description a range of a shared
+ * array of characters (the arena), so a task takes about 20 bytes besides its description, without any object
+ * headers or references to follow.
+ * <p>
+ * {@link #get(int)} creates a new Task as a view of the columns, so changing the task does not change the list;
+ * changes are made with {@link #set(int, Task)}, as {@link TaskList} does. Scans that only need a field, such as
+ * {@link #containsIgnoreCase(int, String)}, read the columns without creating any tasks.
+ *
+ * @see TaskList#setColumnar(boolean)
+ */
+public class ColumnarTaskList extends AbstractList<Task> implements RandomAccess {
+    private static final byte TODO = 0;
+    private static final byte DEADLINE = 1;
+    private static final byte EVENT = 2;
+
+    private byte[] types = new byte[16];
+    private final BitSet done = new BitSet();
+    /**
+     * The first day of each task: the due date of a deadline, or the start date of an event.
+     */
+    private int[] fromDays = new int[16];
+    /**
+     * The last day of each task: the due date of a deadline, or the end date of an event.
+     */
+    private int[] toDays = new int[16];
+    private int[] descStarts = new int[16];
+    private int[] descLengths = new int[16];
+    private char[] arena = new char[256];
+    private int arenaLength;
+    /**
+     * The number of characters in the arena that belong to descriptions no longer in the list.
+     */
+    private int garbage;
+    private int size;
+
+    /**
+     * Creates an empty list.
+     */
+    public ColumnarTaskList() {
+    }
+
+    /**
+     * Returns a list of the given tasks.
+     *
+     * @param tasks the tasks, in order.
+     * @return the list of the tasks.
+     */
+    public static ColumnarTaskList copyOf(Collection<? extends Task> tasks) {
+        ColumnarTaskList list = new ColumnarTaskList();
+        list.ensureCapacity(tasks.size());
+        for (Task task : tasks) {
+            list.add(task);
+        }
+        return list;
+    }
+
+    /**
+     * Returns a copy of the list, which copies the columns rather than creating any task.
+     *
+     * @return the copy of the list.
+     */
+    public ColumnarTaskList copy() {
+        ColumnarTaskList list = new ColumnarTaskList();
+        list.types = Arrays.copyOf(types, size);
+        list.done.or(done);
+        list.fromDays = Arrays.copyOf(fromDays, size);
+        list.toDays = Arrays.copyOf(toDays, size);
+        list.descStarts = Arrays.copyOf(descStarts, size);
+        list.descLengths = Arrays.copyOf(descLengths, size);
+        list.arena = Arrays.copyOf(arena, arenaLength);
+        list.arenaLength = arenaLength;
+        list.garbage = garbage;
+        list.size = size;
+        return list;
+    }
+
+    @Override
+    public Task get(int index) {
+        this.checkIndex(index);
+        String desc = this.getDesc(index);
+        Task task;
+        switch (types[index]) {
+        case DEADLINE:
+            task = new Deadline(desc, LocalDate.ofEpochDay(toDays[index]));
+            break;
+        case EVENT:
+            task = new Event(desc, LocalDate.ofEpochDay(fromDays[index]), LocalDate.ofEpochDay(toDays[index]));
+            break;
+        default:
+            task = new ToDo(desc);
+            break;
+        }
+        task.mark(done.get(index));
+        return task;
+    }
+
+    @Override
+    public Task set(int index, Task task) {
+        Task prev = this.get(index);
+        if (prev.getDesc().equals(task.getDesc())) {
+            // e.g. marked, so the description is kept where it is
+            this.storeFields(index, task);
+        } else {
+            garbage += descLengths[index];
+            this.store(index, task);
+        }
+        return prev;
+    }
+
+    @Override
+    public void add(int index, Task task) {
+        if (index < 0 || index > size) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+        }
+        this.ensureCapacity(size + 1);
+        if (index < size) {
+            this.shift(index, index + 1, size - index);
+        }
+        size++;
+        this.store(index, task);
+        modCount++;
+    }
+
+    @Override
+    public Task remove(int index) {
+        Task prev = this.get(index);
+        garbage += descLengths[index];
+        this.shift(index + 1, index, size - index - 1);
+        size--;
+        done.clear(size);
+        modCount++;
+        return prev;
+    }
+
+    /**
+     * Removes the tasks at the selected indexes, moving the fields of every task kept at most once.
+     *
+     * @param selection the indexes of the tasks.
+     * @see Selection#removeFrom(java.util.List)
+     */
+    public void removeAll(Selection selection) {
+        int first = selection.next(0);
+        if (first < 0 || first >= size) {
+            return;
+        }
+        int kept = first;
+        for (int i = first; i < size; i++) {
+            if (selection.contains(i)) {
+                garbage += descLengths[i];
+                continue;
+            }
+            types[kept] = types[i];
+            fromDays[kept] = fromDays[i];
+            toDays[kept] = toDays[i];
+            descStarts[kept] = descStarts[i];
+            descLengths[kept] = descLengths[i];
+            done.set(kept, done.get(i));
+            kept++;
+        }
+        done.clear(kept, size);
+        size = kept;
+        modCount++;
+    }
+
+    @Override
+    public void clear() {
+        done.clear();
+        size = 0;
+        arenaLength = 0;
+        garbage = 0;
+        modCount++;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns the description of the task at the given index, without creating the task.
+     *
+     * @param index the index of the task.
+     * @return the description.
+     */
+    public String getDesc(int index) {
+        this.checkIndex(index);
+        return new String(arena, descStarts[index], descLengths[index]);
+    }
+
+    /**
+     * Returns whether the task at the given index is done, without creating the task.
+     *
+     * @param index the index of the task.
+     * @return true if the task is marked as done.
+     */
+    public boolean isDone(int index) {
+        this.checkIndex(index);
+        return done.get(index);
+    }
+
+    /**
+     * Returns whether the description of the task at the given index contains the given term, ignoring case, by
+     * comparing the characters in the arena without creating a string.
+     *
+     * @param index the index of the task.
+     * @param term  the term, in lower case.
+     * @return true if the description contains the term.
+     */
+    public boolean containsIgnoreCase(int index, String term) {
+        this.checkIndex(index);
+        int start = descStarts[index];
+        int last = start + descLengths[index] - term.length();
+        for (int i = start; i <= last; i++) {
+            int j = 0;
+            while (j < term.length() && ColumnarTaskList.toLowerCase(arena[i + j]) == term.charAt(j)) {
+                j++;
+            }
+            if (j == term.length()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static char toLowerCase(char c) {
+        if (c < 0x80) {
+            // most descriptions are ASCII, which skips looking up the character
+            return c >= 'A' && c <= 'Z' ? (char) (c + ('a' - 'A')) : c;
+        }
+        return Character.toLowerCase(c);
+    }
+
+    private void store(int index, Task task) {
+        String desc = task.getDesc();
+        if (arenaLength + desc.length() > arena.length && garbage > arenaLength / 2) {
+            this.compact();
+        }
+        if (arenaLength + desc.length() > arena.length) {
+            arena = Arrays.copyOf(arena, Math.max(arena.length * 2, arenaLength + desc.length()));
+        }
+        desc.getChars(0, desc.length(), arena, arenaLength);
+        descStarts[index] = arenaLength;
+        descLengths[index] = desc.length();
+        arenaLength += desc.length();
+        this.storeFields(index, task);
+    }
+
+    private void storeFields(int index, Task task) {
+        if (task instanceof Deadline) {
+            types[index] = DEADLINE;
+            fromDays[index] = (int) ((Deadline) task).getBy().toEpochDay();
+            toDays[index] = fromDays[index];
+        } else if (task instanceof Event) {
+            types[index] = EVENT;
+            fromDays[index] = (int) ((Event) task).getFrom().toEpochDay();
+            toDays[index] = (int) ((Event) task).getTo().toEpochDay();
+        } else {
+            types[index] = TODO;
+        }
+        done.set(index, task.isDone());
+    }
+
+    /**
+     * Copies the descriptions still in the list to the start of the arena, dropping the rest.
+     */
+    private void compact() {
+        char[] compacted = new char[arena.length];
+        int length = 0;
+        for (int i = 0; i < size; i++) {
+            System.arraycopy(arena, descStarts[i], compacted, length, descLengths[i]);
+            descStarts[i] = length;
+            length += descLengths[i];
+        }
+        arena = compacted;
+        arenaLength = length;
+        garbage = 0;
+    }
+
+    /**
+     * Moves the given number of tasks in every column, from one index to another.
+     */
+    private void shift(int from, int to, int count) {
+        System.arraycopy(types, from, types, to, count);
+        System.arraycopy(fromDays, from, fromDays, to, count);
+        System.arraycopy(toDays, from, toDays, to, count);
+        System.arraycopy(descStarts, from, descStarts, to, count);
+        System.arraycopy(descLengths, from, descLengths, to, count);
+        if (to < from) {
+            for (int i = 0; i < count; i++) {
+                done.set(to + i, done.get(from + i));
+            }
+        } else {
+            for (int i = count - 1; i >= 0; i--) {
+                done.set(to + i, done.get(from + i));
+            }
+        }
+    }
+
+    private void ensureCapacity(int capacity) {
+        if (capacity <= types.length) {
+            return;
+        }
+        int newCapacity = Math.max(capacity, types.length + (types.length >> 1));
+        types = Arrays.copyOf(types, newCapacity);
+        fromDays = Arrays.copyOf(fromDays, newCapacity);
+        toDays = Arrays.copyOf(toDays, newCapacity);
+        descStarts = Arrays.copyOf(descStarts, newCapacity);
+        descLengths = Arrays.copyOf(descLengths, newCapacity);
+    }
+
+    private void checkIndex(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+        }
+    }
+}
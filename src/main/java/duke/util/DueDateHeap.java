@@ -0,0 +1,165 @@
+package duke.util;
+
+import duke.task.Deadline;
+import duke.task.Event;
+import duke.task.Task;
+
+import java.util.Arrays;
+import java.util.PriorityQueue;
+import java.util.function.IntConsumer;
+
+/**
+ * Indexed binary min-heap of the undone {@link Deadline}s and {@link Event}s in a {@link TaskList}, ordered by the
+ * due date of a deadline or the start date of an event (and by key, for tasks on the same date).
+ * <p>
+ * Tasks are referred to by their {@link TaskKeys}, and the heap records the position of every key, so that a task can
+ * be removed from the middle of the heap in O(log n) when it is deleted or marked as done.
+ *
+ * @see TaskList#next(String)
+ */
+public class DueDateHeap {
+    private static final int NOT_QUEUED = -1;
+
+    private int[] keys = new int[16];
+    private int[] days = new int[16];
+    /**
+     * The position of each key in the heap, or {@link #NOT_QUEUED}.
+     */
+    private int[] positions = new int[0];
+    private int size;
+
+    /**
+     * Queues a task, if it is an undone task with a date that is not queued yet.
+     *
+     * @param key  the key of the task.
+     * @param task the task.
+     */
+    public void add(int key, Task task) {
+        if (task.isDone() || this.contains(key)) {
+            return;
+        }
+        int day;
+        if (task instanceof Deadline) {
+            day = (int) ((Deadline) task).getBy().toEpochDay();
+        } else if (task instanceof Event) {
+            day = (int) ((Event) task).getFrom().toEpochDay();
+        } else {
+            return;
+        }
+        if (key >= positions.length) {
+            int length = positions.length;
+            positions = Arrays.copyOf(positions, Math.max(16, Math.max(key + 1, length + (length >> 1))));
+            Arrays.fill(positions, length, positions.length, NOT_QUEUED);
+        }
+        if (size == keys.length) {
+            keys = Arrays.copyOf(keys, size * 2);
+            days = Arrays.copyOf(days, size * 2);
+        }
+        this.place(size, key, day);
+        size++;
+        this.siftUp(size - 1);
+    }
+
+    /**
+     * Removes a task from the queue, if it is queued.
+     *
+     * @param key the key of the task.
+     */
+    public void remove(int key) {
+        if (!this.contains(key)) {
+            return;
+        }
+        int position = positions[key];
+        positions[key] = NOT_QUEUED;
+        size--;
+        if (position == size) {
+            return;
+        }
+        this.place(position, keys[size], days[size]);
+        this.siftDown(position);
+        this.siftUp(position);
+    }
+
+    /**
+     * Passes the keys of the first tasks in the queue to the given action, earliest first, without removing them.
+     * Only the parts of the heap above the returned tasks are visited, in O(n log n).
+     *
+     * @param n      the maximum number of tasks.
+     * @param action the action to perform on the keys.
+     */
+    public void forEachFirst(int n, IntConsumer action) {
+        PriorityQueue<Integer> frontier = new PriorityQueue<>(
+                (a, b) -> this.isBefore(a, b) ? -1 : (this.isBefore(b, a) ? 1 : 0));
+        if (size > 0) {
+            frontier.add(0);
+        }
+        for (int i = 0; i < n && !frontier.isEmpty(); i++) {
+            int position = frontier.poll();
+            action.accept(keys[position]);
+            for (int child = 2 * position + 1; child <= 2 * position + 2 && child < size; child++) {
+                frontier.add(child);
+            }
+        }
+    }
+
+    /**
+     * Returns whether a task is queued.
+     *
+     * @param key the key of the task.
+     * @return true if the task is queued.
+     */
+    public boolean contains(int key) {
+        return key < positions.length && positions[key] != NOT_QUEUED;
+    }
+
+    /**
+     * Returns the number of queued tasks.
+     *
+     * @return the number of undone tasks with dates.
+     */
+    public int size() {
+        return size;
+    }
+
+    private void siftUp(int position) {
+        while (position > 0) {
+            int parent = (position - 1) / 2;
+            if (!this.isBefore(position, parent)) {
+                return;
+            }
+            this.swap(position, parent);
+            position = parent;
+        }
+    }
+
+    private void siftDown(int position) {
+        while (2 * position + 1 < size) {
+            int child = 2 * position + 1;
+            if (child + 1 < size && this.isBefore(child + 1, child)) {
+                child++;
+            }
+            if (!this.isBefore(child, position)) {
+                return;
+            }
+            this.swap(position, child);
+            position = child;
+        }
+    }
+
+    private boolean isBefore(int a, int b) {
+        return days[a] < days[b] || (days[a] == days[b] && keys[a] < keys[b]);
+    }
+
+    private void swap(int a, int b) {
+        int key = keys[a];
+        int day = days[a];
+        this.place(a, keys[b], days[b]);
+        this.place(b, key, day);
+    }
+
+    private void place(int position, int key, int day) {
+        keys[position] = key;
+        days[position] = day;
+        positions[key] = position;
+    }
+}
@@ -0,0 +1,233 @@
+package duke.util;
+
+import duke.task.Task;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+
+/**
+ * The undo and redo history of a {@link TaskList}, as the versions of the tasks before (or after) each change.
+ * Versions are {@link PersistentVector}s derived from one another, so a version only takes as much memory as the
+ * arrays that the change copied, rather than a copy of every task.
+ * <p>
+ * The history is bounded: once it holds {@link #getLimit() the limit} of undoable changes, the oldest one is dropped
+ * whenever another change is made. Making a change drops every change that could be redone.
+ *
+ * @see TaskList#undo()
+ */
+public class History {
+    /**
+     * The default number of changes that can be undone.
+     */
+    public static final int DEFAULT_LIMIT = 100;
+
+    private final Deque<Step> undos = new ArrayDeque<>();
+    private final Deque<Step> redos = new ArrayDeque<>();
+    private int limit;
+
+    /**
+     * Creates an empty history.
+     *
+     * @param limit the number of changes that can be undone.
+     */
+    public History(int limit) {
+        this.setLimit(limit);
+    }
+
+    /**
+     * Records a change, which can then be undone.
+     *
+     * @param name   the name of the change.
+     * @param before the tasks before the change.
+     */
+    public void record(String name, PersistentVector<Task> before) {
+        if (limit == 0) {
+            return;
+        }
+        redos.clear();
+        undos.push(new Step(name, before));
+        while (undos.size() > limit) {
+            undos.removeLast();
+        }
+    }
+
+    /**
+     * Undoes the last change that has not been undone, which can then be redone.
+     *
+     * @param current the current tasks.
+     * @return the change undone, with the tasks before it, or null if there is nothing to undo.
+     */
+    public Step undo(PersistentVector<Task> current) {
+        return History.move(undos, redos, current);
+    }
+
+    /**
+     * Redoes the last change undone, which can then be undone again.
+     *
+     * @param current the current tasks.
+     * @return the change redone, with the tasks after it, or null if there is nothing to redo.
+     */
+    public Step redo(PersistentVector<Task> current) {
+        return History.move(redos, undos, current);
+    }
+
+    private static Step move(Deque<Step> from, Deque<Step> to, PersistentVector<Task> current) {
+        Step step = from.poll();
+        if (step != null) {
+            to.push(new Step(step.name, current));
+        }
+        return step;
+    }
+
+    /**
+     * Returns the number of changes that can be undone.
+     *
+     * @return the limit of the history.
+     */
+    public int getLimit() {
+        return limit;
+    }
+
+    /**
+     * Sets the number of changes that can be undone, dropping the oldest changes beyond it.
+     *
+     * @param limit the limit of the history, or 0 to disable it.
+     */
+    public void setLimit(int limit) {
+        if (limit < 0) {
+            throw new IllegalArgumentException("Invalid history limit: " + limit);
+        }
+        this.limit = limit;
+        while (undos.size() > limit) {
+            undos.removeLast();
+        }
+        if (limit == 0) {
+            redos.clear();
+        }
+    }
+
+    /**
+     * Returns whether there are changes to undo or redo.
+     *
+     * @return true if the history is empty.
+     */
+    public boolean isEmpty() {
+        return undos.isEmpty() && redos.isEmpty();
+    }
+
+    /**
+     * Writes the history, as the differences of each version from the next one towards the current tasks.
+     * Tasks that versions share are written once at most, so the history takes about as much space on disk as in
+     * memory.
+     *
+     * @param out     the output to write to.
+     * @param current the current tasks.
+     * @throws IOException if the history cannot be written.
+     */
+    public void writeTo(DataOutput out, PersistentVector<Task> current) throws IOException {
+        for (Deque<Step> steps : List.of(undos, redos)) {
+            out.writeInt(steps.size());
+            PersistentVector<Task> next = current;
+            for (Step step : steps) {
+                List<Integer> changed = new ArrayList<>();
+                step.tasks.forEachDifference(next, changed::add);
+                History.writeName(out, step.name);
+                out.writeInt(step.tasks.size());
+                out.writeInt(changed.size());
+                for (int index : changed) {
+                    out.writeInt(index);
+                    TaskCodec.write(out, step.tasks.get(index));
+                }
+                next = step.tasks;
+            }
+        }
+    }
+
+    /**
+     * Reads a history written by {@link #writeTo(DataOutput, PersistentVector)}.
+     *
+     * @param in      the input to read from.
+     * @param current the current tasks, as they were when the history was written.
+     * @param limit   the number of changes that can be undone.
+     * @return the history.
+     * @throws IOException if the history cannot be read.
+     */
+    public static History readFrom(DataInput in, PersistentVector<Task> current, int limit) throws IOException {
+        History history = new History(limit);
+        for (Deque<Step> steps : List.of(history.undos, history.redos)) {
+            int count = in.readInt();
+            PersistentVector<Task> next = current;
+            for (int i = 0; i < count; i++) {
+                String name = History.readName(in);
+                int size = in.readInt();
+                int changed = in.readInt();
+                PersistentVector<Task> tasks = next.take(Math.min(size, next.size()));
+                for (int j = 0; j < changed; j++) {
+                    int index = in.readInt();
+                    Task task = TaskCodec.read(in);
+                    tasks = index < tasks.size() ? tasks.with(index, task) : tasks.plus(task);
+                }
+                if (tasks.size() != size) {
+                    throw new IOException("Corrupt history");
+                }
+                steps.addLast(new Step(name, tasks));
+                next = tasks;
+            }
+        }
+        history.setLimit(limit);
+        return history;
+    }
+
+    /**
+     * Writes the name of a change as length-prefixed UTF-8, as {@link TaskCodec} writes descriptions, since the name
+     * includes the description of a task, which can be longer than {@link DataOutput#writeUTF(String)} allows.
+     */
+    private static void writeName(DataOutput out, String name) throws IOException {
+        byte[] bytes = name.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readName(DataInput in) throws IOException {
+        byte[] bytes = new byte[in.readInt()];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * A change in the history, with the version of the tasks that undoing (or redoing) it restores.
+     */
+    public static class Step {
+        private final String name;
+        private final PersistentVector<Task> tasks;
+
+        private Step(String name, PersistentVector<Task> tasks) {
+            this.name = name;
+            this.tasks = tasks;
+        }
+
+        /**
+         * Returns the name of the change.
+         *
+         * @return the name.
+         */
+        public String getName() {
+            return name;
+        }
+
+        /**
+         * Returns the tasks that undoing (or redoing) the change restores.
+         *
+         * @return the tasks.
+         */
+        public PersistentVector<Task> getTasks() {
+            return tasks;
+        }
+    }
+}
@@ -0,0 +1,233 @@
+package duke.util;
+
+import duke.task.Deadline;
+import duke.task.Event;
+import duke.task.Task;
+
+import java.util.Random;
+import java.util.function.IntConsumer;
+
+/**
+ * Interval tree over the dates of the {@link Deadline}s and {@link Event}s in a {@link TaskList}, as epoch days.
+ * A deadline is indexed as the single-day interval of its due date, and an event as the interval from its start date
+ * to its end date (both inclusive). Tasks without dates are not indexed.
+ * <p>
+ * The intervals are kept in a treap ordered by start date (and key, to tell equal dates apart), where every node also
+ * records the earliest and latest end date in its subtree, and the number of intervals in it. Subtrees that cannot hold
+ * a matching interval are skipped, so a query only visits the paths to the matching intervals.
+ *
+ * @see TaskList#dueBefore(String)
+ * @see TaskList#between(String, String)
+ */
+public class IntervalIndex {
+    private final Random random = new Random();
+    private Node root;
+    private int size;
+
+    /**
+     * Indexes the dates of a task, if it has any.
+     *
+     * @param key  the key of the task.
+     * @param task the task.
+     */
+    public void add(int key, Task task) {
+        Node node = IntervalIndex.toNode(key, task);
+        if (node == null) {
+            return;
+        }
+        node.priority = random.nextInt();
+        Node[] split = IntervalIndex.split(root, node.from, key);
+        root = IntervalIndex.merge(IntervalIndex.merge(split[0], node), split[1]);
+        size++;
+    }
+
+    /**
+     * Removes the dates of a deleted task from the index, if it has any.
+     *
+     * @param key  the key of the task.
+     * @param task the task.
+     */
+    public void remove(int key, Task task) {
+        Node node = IntervalIndex.toNode(key, task);
+        if (node == null) {
+            return;
+        }
+        Node[] lower = IntervalIndex.split(root, node.from, key);
+        Node[] upper = IntervalIndex.split(lower[1], node.from, key + 1);
+        if (upper[0] != null) {
+            size--;
+        }
+        root = IntervalIndex.merge(lower[0], upper[1]);
+    }
+
+    /**
+     * Passes the key of every indexed task with a date strictly before the given day to the given action.
+     * An event is only included if it ends before the day.
+     *
+     * @param day    the day, as an epoch day.
+     * @param action the action to perform on the keys, in order of start date.
+     */
+    public void forEachEndingBefore(int day, IntConsumer action) {
+        IntervalIndex.endingBefore(root, day, action);
+    }
+
+    /**
+     * Passes the key of every indexed task with dates overlapping the given interval to the given action.
+     *
+     * @param from   the first day of the interval, as an epoch day.
+     * @param to     the last day of the interval, as an epoch day.
+     * @param action the action to perform on the keys, in order of start date.
+     */
+    public void forEachOverlapping(int from, int to, IntConsumer action) {
+        IntervalIndex.overlapping(root, from, to, action);
+    }
+
+    /**
+     * Returns the number of indexed tasks with a date strictly before the given day, counting an event if it starts
+     * before the day, in time proportional to the height of the tree. As an event that ends before the day also starts
+     * before it, this is at least the number of keys that {@link #forEachEndingBefore(int, IntConsumer)} passes on.
+     *
+     * @param day the day, as an epoch day.
+     * @return the number of tasks starting before the day.
+     */
+    public int countStartingBefore(int day) {
+        int count = 0;
+        Node node = root;
+        while (node != null) {
+            if (node.from < day) {
+                count += 1 + (node.left == null ? 0 : node.left.count);
+                node = node.right;
+            } else {
+                node = node.left;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Returns the number of indexed tasks.
+     *
+     * @return the number of tasks with dates.
+     */
+    public int size() {
+        return size;
+    }
+
+    private static void endingBefore(Node node, int day, IntConsumer action) {
+        // intervals start no later than they end, so no interval in the right subtree can end earlier than this node
+        while (node != null && node.minTo < day) {
+            endingBefore(node.left, day, action);
+            if (node.from >= day) {
+                return;
+            }
+            if (node.to < day) {
+                action.accept(node.key);
+            }
+            node = node.right;
+        }
+    }
+
+    private static void overlapping(Node node, int from, int to, IntConsumer action) {
+        while (node != null && node.maxTo >= from) {
+            overlapping(node.left, from, to, action);
+            if (node.from > to) {
+                return;
+            }
+            if (node.to >= from) {
+                action.accept(node.key);
+            }
+            node = node.right;
+        }
+    }
+
+    private static Node toNode(int key, Task task) {
+        if (task instanceof Deadline) {
+            int by = (int) ((Deadline) task).getBy().toEpochDay();
+            return new Node(key, by, by);
+        } else if (task instanceof Event) {
+            Event event = (Event) task;
+            return new Node(key, (int) event.getFrom().toEpochDay(), (int) event.getTo().toEpochDay());
+        }
+        return null;
+    }
+
+    /**
+     * Splits a subtree into the intervals ordered before the given start date and key, and the rest.
+     */
+    private static Node[] split(Node node, int from, int key) {
+        if (node == null) {
+            return new Node[2];
+        }
+        if (node.from < from || (node.from == from && node.key < key)) {
+            Node[] split = IntervalIndex.split(node.right, from, key);
+            node.right = split[0];
+            node.update();
+            split[0] = node;
+            return split;
+        } else {
+            Node[] split = IntervalIndex.split(node.left, from, key);
+            node.left = split[1];
+            node.update();
+            split[1] = node;
+            return split;
+        }
+    }
+
+    /**
+     * Merges two subtrees, where every interval of the first is ordered before every interval of the second.
+     */
+    private static Node merge(Node left, Node right) {
+        if (left == null) {
+            return right;
+        } else if (right == null) {
+            return left;
+        } else if (left.priority > right.priority) {
+            left.right = IntervalIndex.merge(left.right, right);
+            left.update();
+            return left;
+        } else {
+            right.left = IntervalIndex.merge(left, right.left);
+            right.update();
+            return right;
+        }
+    }
+
+    /**
+     * The interval of a single task, and the root of the subtree of intervals below it.
+     */
+    private static class Node {
+        private final int key;
+        private final int from;
+        private final int to;
+        private int priority;
+        private int minTo;
+        private int maxTo;
+        private int count = 1;
+        private Node left;
+        private Node right;
+
+        private Node(int key, int from, int to) {
+            this.key = key;
+            this.from = from;
+            this.to = to;
+            this.minTo = to;
+            this.maxTo = to;
+        }
+
+        private void update() {
+            minTo = to;
+            maxTo = to;
+            count = 1;
+            if (left != null) {
+                minTo = Math.min(minTo, left.minTo);
+                maxTo = Math.max(maxTo, left.maxTo);
+                count += left.count;
+            }
+            if (right != null) {
+                minTo = Math.min(minTo, right.minTo);
+                maxTo = Math.max(maxTo, right.maxTo);
+                count += right.count;
+            }
+        }
+    }
+}
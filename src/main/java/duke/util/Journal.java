@@ -0,0 +1,249 @@
+package duke.util;
+
+import duke.task.Task;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.util.List;
+
+/**
+ * Append-only log of the mutations made to a {@link TaskList} since its last snapshot was written by {@link Storage}.
+ * Each mutation is recorded as one compact entry, so a change to a single task costs a few bytes of I/O instead of a
+ * rewrite of the whole list. Replaying the journal on top of the last snapshot recovers the latest list.
+ * <p>
+ * The journal file starts with the generation of the snapshot that it applies to, so that a journal left behind by a
+ * crash right after a newer snapshot was written is discarded instead of being replayed twice.
+ * Entries are recorded in memory, and written to the file in batches by {@link #append(byte[], long)}.
+ *
+ * @see Storage
+ */
+public class Journal {
+    private static final int MAGIC = 0x4A524E4C;
+    private static final int HEADER_SIZE = Integer.BYTES + Long.BYTES;
+    private static final byte ADD = 1;
+    private static final byte MARK = 2;
+    private static final byte DELETE = 3;
+
+    private final File file;
+    private final ByteArrayOutputStream pending = new ByteArrayOutputStream();
+    private final DataOutputStream out = new DataOutputStream(pending);
+    private int size;
+
+    /**
+     * Creates a journal backed by the given file.
+     *
+     * @param fileName the name of the file the journal is appended to.
+     */
+    public Journal(String fileName) {
+        this.file = new File(fileName);
+    }
+
+    /**
+     * Records the addition of a task to the end of the list.
+     *
+     * @param task the task that was added.
+     * @throws IOException if the task cannot be encoded.
+     */
+    public synchronized void add(Task task) throws IOException {
+        out.writeByte(ADD);
+        TaskCodec.write(out, task);
+        size++;
+    }
+
+    /**
+     * Records the new status of a task.
+     *
+     * @param index  the index of the task.
+     * @param isDone the status of the task after the change.
+     * @throws IOException if the entry cannot be encoded.
+     */
+    public synchronized void mark(int index, boolean isDone) throws IOException {
+        out.writeByte(MARK);
+        out.writeInt(index);
+        out.writeBoolean(isDone);
+        size++;
+    }
+
+    /**
+     * Records the deletion of tasks, in the order that they were removed from the list.
+     *
+     * @param indexes the indexes of the deleted tasks.
+     * @throws IOException if the entry cannot be encoded.
+     */
+    public synchronized void delete(List<Integer> indexes) throws IOException {
+        out.writeByte(DELETE);
+        out.writeInt(indexes.size());
+        for (int index : indexes) {
+            out.writeInt(index);
+        }
+        size++;
+    }
+
+    /**
+     * Removes and returns the entries recorded since the last call, to be written by {@link #append(byte[], long)}.
+     *
+     * @return the encoded entries.
+     */
+    public synchronized byte[] drain() {
+        byte[] entries = pending.toByteArray();
+        pending.reset();
+        return entries;
+    }
+
+    /**
+     * Discards every recorded entry, once they have been captured by a new snapshot.
+     * The journal file itself is reset by {@link #truncate(long)} once the snapshot is written.
+     */
+    public synchronized void reset() {
+        pending.reset();
+        size = 0;
+    }
+
+    /**
+     * Appends entries to the journal file, in a single write.
+     *
+     * @param entries    the encoded entries, as returned by {@link #drain()}.
+     * @param generation the generation of the snapshot that the entries apply to.
+     * @throws IOException if the journal file cannot be written to.
+     */
+    public void append(byte[] entries, long generation) throws IOException {
+        if (entries.length == 0) {
+            return;
+        }
+        if (file.length() < HEADER_SIZE) {
+            this.truncate(generation);
+        }
+        try (FileOutputStream fos = new FileOutputStream(file, true)) {
+            fos.write(entries);
+        }
+    }
+
+    /**
+     * Discards every entry in the journal file, and marks the file as applying to the given snapshot.
+     *
+     * @param generation the generation of the snapshot that was just written.
+     * @throws IOException if the journal file cannot be written to.
+     */
+    public void truncate(long generation) throws IOException {
+        try (DataOutputStream dos = new DataOutputStream(new FileOutputStream(file))) {
+            dos.writeInt(MAGIC);
+            dos.writeLong(generation);
+        }
+    }
+
+    /**
+     * Applies every entry in the journal file to the given tasks, which should be the tasks of the last snapshot.
+     * A truncated trailing entry (e.g. from a crash mid-write) is ignored, and so is a journal that applies to
+     * another snapshot.
+     *
+     * @param tasks      the tasks to apply the entries to.
+     * @param generation the generation of the snapshot that the tasks were loaded from.
+     * @return the number of entries applied.
+     * @throws IOException if the journal file cannot be read.
+     */
+    public int replay(List<Task> tasks, long generation) throws IOException {
+        this.reset();
+        if (!file.exists()) {
+            return 0;
+        }
+        byte[] journal = Files.readAllBytes(file.toPath());
+        ByteArrayInputStream bytes = new ByteArrayInputStream(journal);
+        DataInputStream in = new DataInputStream(bytes);
+        if (journal.length < HEADER_SIZE || in.readInt() != MAGIC || in.readLong() != generation) {
+            this.truncate(generation);
+            return 0;
+        }
+        return this.apply(tasks, journal, bytes, in, HEADER_SIZE);
+    }
+
+    /**
+     * Applies every entry in a journal file written before journals had a header, which applies to a snapshot of
+     * {@link TaskCodec#VERSION_1}. The journal is not reset, as it is replaced once the tasks are saved again.
+     *
+     * @param tasks the tasks of the snapshot to apply the entries to.
+     * @return the number of entries applied.
+     * @throws IOException if the journal file cannot be read.
+     */
+    public int replayVersion1(List<Task> tasks) throws IOException {
+        this.reset();
+        if (!file.exists()) {
+            return 0;
+        }
+        byte[] journal = Files.readAllBytes(file.toPath());
+        ByteArrayInputStream bytes = new ByteArrayInputStream(journal);
+        return this.apply(tasks, journal, bytes, new DataInputStream(bytes), 0);
+    }
+
+    /**
+     * Applies the entries from the given position of the journal on, dropping a partially written last entry.
+     */
+    private int apply(List<Task> tasks, byte[] journal, ByteArrayInputStream bytes, DataInputStream in, int start)
+            throws IOException {
+        int count = 0;
+        int end = start;
+        try {
+            while (bytes.available() > 0) {
+                byte op = in.readByte();
+                if (op == ADD) {
+                    tasks.add(TaskCodec.read(in));
+                } else if (op == MARK) {
+                    int index = in.readInt();
+                    boolean isDone = in.readBoolean();
+                    tasks.get(index).mark(isDone);
+                } else if (op == DELETE) {
+                    int[] indexes = new int[in.readInt()];
+                    for (int i = 0; i < indexes.length; i++) {
+                        indexes[i] = in.readInt();
+                    }
+                    if (Journal.isDecreasing(indexes) && (indexes.length == 0 || indexes[0] < tasks.size())) {
+                        // distinct and in range, so they can all be removed in one pass
+                        Selection.of(indexes).removeFrom(tasks);
+                    } else {
+                        for (int index : indexes) {
+                            tasks.remove(index);
+                        }
+                    }
+                } else {
+                    throw new IOException("Corrupted journal entry: " + op);
+                }
+                count++;
+                end = journal.length - bytes.available();
+            }
+        } catch (EOFException e) {
+            // the last entry was only partially written, drop it so that later entries are not appended after it
+            try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+                raf.setLength(end);
+            }
+        }
+        synchronized (this) {
+            this.size = count;
+        }
+        return count;
+    }
+
+    /**
+     * Returns the number of entries since the last snapshot.
+     *
+     * @return the number of entries in the journal.
+     */
+    public synchronized int size() {
+        return size;
+    }
+
+    private static boolean isDecreasing(int[] indexes) {
+        for (int i = 1; i < indexes.length; i++) {
+            if (indexes[i] >= indexes[i - 1]) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
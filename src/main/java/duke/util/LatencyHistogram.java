@@ -0,0 +1,110 @@
+package duke.util;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Lock-free histogram of durations in nanoseconds (or any other non-negative values), in the style of HdrHistogram.
+ * Every power of two is split into {@value #SUB_BUCKETS} buckets of equal width, so any value is counted in a bucket
+ * no wider than 1/{@value #SUB_BUCKETS} of the value, and percentiles are accurate to that precision.
+ * Recording a value only increments a few counters, and can be done by any number of threads at once.
+ *
+ * @see Metrics
+ */
+public class LatencyHistogram {
+    private static final int SUB_BUCKET_BITS = 4;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    private static final int BUCKETS = (Long.SIZE - SUB_BUCKET_BITS + 1) * SUB_BUCKETS;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+    private final LongAdder count = new LongAdder();
+    private final LongAdder sum = new LongAdder();
+    private final AtomicLong max = new AtomicLong();
+
+    /**
+     * Records a value.
+     *
+     * @param value the value, where negative values are recorded as 0.
+     */
+    public void record(long value) {
+        long v = Math.max(0, value);
+        counts.incrementAndGet(LatencyHistogram.indexOf(v));
+        count.increment();
+        sum.add(v);
+        long prev = max.get();
+        while (v > prev && !max.compareAndSet(prev, v)) {
+            prev = max.get();
+        }
+    }
+
+    /**
+     * Returns the number of values recorded.
+     *
+     * @return the number of values.
+     */
+    public long getCount() {
+        return count.sum();
+    }
+
+    /**
+     * Returns the mean of the values recorded.
+     *
+     * @return the mean, or 0 if no values have been recorded.
+     */
+    public double getMean() {
+        long n = count.sum();
+        return n == 0 ? 0 : (double) sum.sum() / n;
+    }
+
+    /**
+     * Returns the largest value recorded.
+     *
+     * @return the largest value, or 0 if no values have been recorded.
+     */
+    public long getMax() {
+        return max.get();
+    }
+
+    /**
+     * Returns the value that the given share of the recorded values are at most, to the precision of the buckets.
+     *
+     * @param percentile the share of the values, from 0 to 100.
+     * @return the highest value of the bucket of the percentile, or 0 if no values have been recorded.
+     */
+    public long getPercentile(double percentile) {
+        long[] snapshot = new long[BUCKETS];
+        long total = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            snapshot[i] = counts.get(i);
+            total += snapshot[i];
+        }
+        long rank = Math.max(1, (long) Math.ceil(percentile / 100 * total));
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += snapshot[i];
+            if (seen >= rank) {
+                return Math.min(LatencyHistogram.highestValueOf(i), this.getMax());
+            }
+        }
+        return 0;
+    }
+
+    private static int indexOf(long value) {
+        if (value < SUB_BUCKETS) {
+            return (int) value;
+        }
+        int shift = (Long.SIZE - 1 - Long.numberOfLeadingZeros(value)) - SUB_BUCKET_BITS;
+        int subBucket = (int) (value >>> shift) & (SUB_BUCKETS - 1);
+        return (shift + 1) * SUB_BUCKETS + subBucket;
+    }
+
+    private static long highestValueOf(int index) {
+        if (index < SUB_BUCKETS) {
+            return index;
+        }
+        int shift = index / SUB_BUCKETS - 1;
+        long subBucket = SUB_BUCKETS + index % SUB_BUCKETS;
+        return ((subBucket + 1) << shift) - 1;
+    }
+}
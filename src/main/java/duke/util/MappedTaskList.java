@@ -0,0 +1,227 @@
+package duke.util;
+
+import duke.task.Task;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.RandomAccess;
+
+/**
+ * A list of tasks backed by a snapshot file written by {@link TaskCodec}, which is memory-mapped instead of read.
+ * <p>
+ * Opening the list only reads the snapshot header, so it takes the same time regardless of the number of tasks.
+ * The offset of each record is indexed the first time a record at or after it is needed, and a task is only decoded
+ * when it is first accessed. The list can be modified like any other list; the snapshot file is never written to.
+ * <p>
+ * As reading a task may index and decode records, every method that reads or changes the tasks is synchronized, so
+ * that the list can be read by several threads at once (but is only worth reading from one, as they take turns).
+ *
+ * @see Storage
+ */
+public class MappedTaskList extends AbstractList<Task> implements RandomAccess {
+    private static final boolean CAN_REPLACE_MAPPED_FILE = !System.getProperty("os.name", "").startsWith("Windows");
+
+    private final ByteBuffer buffer;
+    private Task[] tasks;
+    private int[] offsets;
+    private int size;
+    /**
+     * The number of leading records whose offsets are known. Offsets of records added or moved by modifications
+     * are irrelevant, as those tasks are already decoded.
+     */
+    private int indexed;
+
+    private MappedTaskList(ByteBuffer buffer) throws IOException {
+        this.buffer = buffer;
+        this.size = TaskCodec.readHeader(buffer);
+        this.tasks = new Task[size];
+        this.offsets = new int[size];
+        if (size > 0) {
+            offsets[0] = TaskCodec.HEADER_SIZE;
+        }
+        this.indexed = Math.min(size, 1);
+    }
+
+    private MappedTaskList(MappedTaskList list) {
+        this.buffer = list.buffer;
+        this.tasks = Arrays.copyOf(list.tasks, list.size);
+        this.offsets = Arrays.copyOf(list.offsets, list.size);
+        this.size = list.size;
+        this.indexed = list.indexed;
+    }
+
+    /**
+     * Opens the snapshot at the given path.
+     * Windows does not allow a mapped file to be replaced by a new snapshot, so there the file is read instead.
+     *
+     * @param path the path to the snapshot.
+     * @return the tasks in the snapshot.
+     * @throws IOException if the file cannot be read or is not a snapshot.
+     */
+    public static MappedTaskList open(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            if (CAN_REPLACE_MAPPED_FILE) {
+                return new MappedTaskList(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+            }
+            ByteBuffer buffer = ByteBuffer.allocate((int) channel.size());
+            while (buffer.hasRemaining() && channel.read(buffer) >= 0) {
+                // keep reading until the buffer is full
+            }
+            buffer.flip();
+            return new MappedTaskList(buffer);
+        }
+    }
+
+    /**
+     * Returns a copy of the list, which reads the tasks that have yet to be decoded from the same snapshot, so that
+     * copying does not decode any task.
+     *
+     * @return the copy of the list.
+     */
+    public synchronized MappedTaskList copy() {
+        return new MappedTaskList(this);
+    }
+
+    @Override
+    public synchronized Task get(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+        }
+        Task task = tasks[index];
+        if (task == null) {
+            indexUntil(index);
+            try {
+                task = TaskCodec.read(buffer, offsets[index]);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            tasks[index] = task;
+        }
+        return task;
+    }
+
+    @Override
+    public synchronized Task set(int index, Task task) {
+        Task prev = this.get(index);
+        tasks[index] = task;
+        return prev;
+    }
+
+    @Override
+    public synchronized void add(int index, Task task) {
+        if (index < 0 || index > size) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+        }
+        indexUntil(size - 1);
+        if (size == tasks.length) {
+            int capacity = Math.max(16, size + (size >> 1));
+            tasks = Arrays.copyOf(tasks, capacity);
+            offsets = Arrays.copyOf(offsets, capacity);
+        }
+        System.arraycopy(tasks, index, tasks, index + 1, size - index);
+        System.arraycopy(offsets, index, offsets, index + 1, size - index);
+        tasks[index] = task;
+        size++;
+        indexed = size;
+        modCount++;
+    }
+
+    @Override
+    public synchronized Task remove(int index) {
+        Task prev = this.get(index);
+        indexUntil(size - 1);
+        System.arraycopy(tasks, index + 1, tasks, index, size - index - 1);
+        System.arraycopy(offsets, index + 1, offsets, index, size - index - 1);
+        size--;
+        tasks[size] = null;
+        indexed = size;
+        modCount++;
+        return prev;
+    }
+
+    /**
+     * Removes the selected tasks in a single pass, moving the offsets of the records kept along with them, so that
+     * no task is decoded.
+     *
+     * @param selection the indexes of the tasks to remove.
+     */
+    public synchronized void removeAll(Selection selection) {
+        int first = selection.next(0);
+        if (first < 0 || first >= size) {
+            return;
+        }
+        indexUntil(size - 1);
+        int kept = first;
+        for (int i = first; i < size; i++) {
+            if (!selection.contains(i)) {
+                tasks[kept] = tasks[i];
+                offsets[kept] = offsets[i];
+                kept++;
+            }
+        }
+        Arrays.fill(tasks, kept, size, null);
+        size = kept;
+        indexed = size;
+        modCount++;
+    }
+
+    @Override
+    public synchronized int size() {
+        return size;
+    }
+
+    /**
+     * Writes the record of the task at the given index, copying it from the snapshot if it has not been decoded.
+     *
+     * @param out   the output to write to.
+     * @param index the index of the task.
+     * @throws IOException if the output cannot be written to.
+     */
+    public synchronized void write(DataOutputStream out, int index) throws IOException {
+        if (tasks[index] != null) {
+            TaskCodec.write(out, tasks[index]);
+            return;
+        }
+        indexUntil(index);
+        int offset = offsets[index];
+        ByteBuffer record = buffer.duplicate();
+        record.position(offset);
+        record.limit(offset + TaskCodec.sizeOf(buffer, offset));
+        if (record.hasArray()) {
+            out.write(record.array(), record.arrayOffset() + offset, record.remaining());
+        } else {
+            byte[] bytes = new byte[record.remaining()];
+            record.get(bytes);
+            out.write(bytes);
+        }
+    }
+
+    /**
+     * Returns the number of tasks that have been decoded so far.
+     *
+     * @return the number of decoded tasks.
+     */
+    public synchronized int decodedCount() {
+        int count = 0;
+        for (int i = 0; i < size; i++) {
+            if (tasks[i] != null) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    private void indexUntil(int index) {
+        for (; indexed <= index; indexed++) {
+            int prev = offsets[indexed - 1];
+            offsets[indexed] = prev + TaskCodec.sizeOf(buffer, prev);
+        }
+    }
+}
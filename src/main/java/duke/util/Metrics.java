@@ -0,0 +1,175 @@
+package duke.util;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.util.LinkedList;
+import java.util.Map;
+import java.util.Queue;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Metrics of the commands run and of the storage: how many times each was run, a {@link LatencyHistogram} of how
+ * long each took, and how many bytes each allocated (commands) or wrote (storage).
+ * <p>
+ * Metrics are off unless the {@code duke.metrics} system property is true, or they are turned on by the
+ * {@code stats} command. While off, recording costs a single check of {@link #isEnabled()}. With the
+ * {@code duke.metrics.dump} system property set to a file name, the metrics are also appended to that file every
+ * {@code duke.metrics.interval} seconds (60 by default).
+ *
+ * @see duke.command.CommandPlan
+ */
+public class Metrics {
+    private static final ConcurrentHashMap<String, Entry> ENTRIES = new ConcurrentHashMap<>();
+    private static final ThreadMXBean THREADS = ManagementFactory.getThreadMXBean();
+    private static final boolean CAN_COUNT_ALLOCATIONS = Metrics.initAllocationCounting();
+    private static volatile boolean isEnabled = Boolean.getBoolean("duke.metrics");
+    private static ScheduledThreadPoolExecutor dumper;
+
+    static {
+        String dumpFile = System.getProperty("duke.metrics.dump");
+        if (dumpFile != null) {
+            Metrics.dumpEvery(dumpFile, Long.getLong("duke.metrics.interval", 60));
+        }
+    }
+
+    private static boolean initAllocationCounting() {
+        try {
+            if (THREADS instanceof com.sun.management.ThreadMXBean) {
+                com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) THREADS;
+                if (threads.isThreadAllocatedMemorySupported()) {
+                    threads.setThreadAllocatedMemoryEnabled(true);
+                    return true;
+                }
+            }
+        } catch (UnsupportedOperationException | NoClassDefFoundError e) {
+            // allocations are not counted on this JVM
+        }
+        return false;
+    }
+
+    /**
+     * Returns whether metrics are being recorded.
+     *
+     * @return true if metrics are on.
+     */
+    public static boolean isEnabled() {
+        return isEnabled;
+    }
+
+    /**
+     * Turns recording metrics on or off. The metrics recorded so far are kept.
+     *
+     * @param isEnabled true to record metrics.
+     */
+    public static void setEnabled(boolean isEnabled) {
+        Metrics.isEnabled = isEnabled;
+    }
+
+    /**
+     * Returns the number of bytes allocated by the current thread so far, to be subtracted from a later count.
+     *
+     * @return the bytes allocated, or 0 if the JVM does not count them.
+     */
+    public static long allocatedBytes() {
+        if (!CAN_COUNT_ALLOCATIONS) {
+            return 0;
+        }
+        return ((com.sun.management.ThreadMXBean) THREADS).getThreadAllocatedBytes(Thread.currentThread().getId());
+    }
+
+    /**
+     * Records a run of a command or an operation, which ends now.
+     *
+     * @param name  the name of the command or operation.
+     * @param start the time that it started, from {@link System#nanoTime()}.
+     * @param bytes the bytes that it allocated or wrote.
+     */
+    public static void record(String name, long start, long bytes) {
+        long duration = System.nanoTime() - start;
+        Entry entry = ENTRIES.computeIfAbsent(name, n -> new Entry());
+        entry.latency.record(duration);
+        entry.bytes.add(bytes);
+    }
+
+    /**
+     * Discards the metrics recorded so far.
+     */
+    public static void reset() {
+        ENTRIES.clear();
+    }
+
+    /**
+     * Returns a table of the metrics recorded so far, sorted by name, with times in microseconds.
+     *
+     * @return the lines of the table.
+     */
+    public static Queue<String> report() {
+        Queue<String> lines = new LinkedList<>();
+        if (ENTRIES.isEmpty()) {
+            lines.add(isEnabled ? "No metrics recorded yet." : "Metrics are off, turn them on with: stats /on");
+            return lines;
+        }
+        lines.add(String.format("%-16s %8s %9s %9s %9s %9s %10s",
+                "(times in us)", "count", "mean", "p50", "p99", "max", "bytes/op"));
+        for (Map.Entry<String, Entry> e : new TreeMap<>(ENTRIES).entrySet()) {
+            LatencyHistogram latency = e.getValue().latency;
+            long count = latency.getCount();
+            lines.add(String.format("%-16s %8d %9.1f %9.1f %9.1f %9.1f %10d",
+                    e.getKey(), count, latency.getMean() / 1000, latency.getPercentile(50) / 1000.0,
+                    latency.getPercentile(99) / 1000.0, latency.getMax() / 1000.0,
+                    count == 0 ? 0 : e.getValue().bytes.sum() / count));
+        }
+        if (!isEnabled) {
+            lines.add("Metrics are off, turn them on with: stats /on");
+        }
+        return lines;
+    }
+
+    /**
+     * Appends the metrics to the given file periodically, replacing any earlier schedule.
+     *
+     * @param fileName the name of the file.
+     * @param seconds  the time between dumps, in seconds.
+     */
+    public static synchronized void dumpEvery(String fileName, long seconds) {
+        if (dumper == null) {
+            dumper = new ScheduledThreadPoolExecutor(1, runnable -> {
+                Thread thread = new Thread(runnable, "metrics-dump");
+                thread.setDaemon(true);
+                return thread;
+            });
+        } else {
+            dumper.getQueue().clear();
+        }
+        dumper.scheduleAtFixedRate(() -> Metrics.dump(fileName), seconds, seconds, TimeUnit.SECONDS);
+    }
+
+    private static void dump(String fileName) {
+        StringBuilder text = new StringBuilder(LocalDateTime.now().toString()).append('\n');
+        Metrics.report().forEach(line -> text.append(line).append('\n'));
+        try {
+            Files.write(Paths.get(fileName), text.append('\n').toString().getBytes(StandardCharsets.UTF_8),
+                    StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+        } catch (IOException e) {
+            System.out.println("\t[ERROR] While dumping metrics, the following error occurred: \n\t" + e);
+        }
+    }
+
+    /**
+     * The metrics of one command or operation.
+     */
+    private static class Entry {
+        private final LatencyHistogram latency = new LatencyHistogram();
+        private final LongAdder bytes = new LongAdder();
+    }
+}
@@ -0,0 +1,271 @@
+package duke.util;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+import java.util.Queue;
+
+/**
+ * Append-only buffer of output lines, which stores the characters of every line one after another in fixed-size
+ * chunks rather than as a list of strings. Lines are only turned back into strings if they are read one at a time,
+ * while formatting or joining the whole output copies the characters straight out of the chunks.
+ * <p>
+ * As a {@link Queue} (and a {@link java.util.List}), it can take the place of the output queue of a {@link Stateful}.
+ * Polling a line moves past it, without freeing its characters until the buffer is cleared.
+ * <p>
+ * Buffers can be reused by {@link #acquire() acquiring} the buffer of the current thread, and
+ * {@link #release() releasing} it once its output has been written.
+ */
+public class OutputBuffer extends AbstractList<String> implements Queue<String> {
+    private static final int CHUNK_SIZE = 1 << 12;
+    /**
+     * The number of chunks kept by a buffer when it is released, so that a single huge output is not kept forever.
+     */
+    private static final int MAX_RETAINED_CHUNKS = 16;
+    private static final ThreadLocal<OutputBuffer> POOL = ThreadLocal.withInitial(OutputBuffer::new);
+
+    private static final char[][] NO_CHUNKS = new char[0][];
+    private static final int[] NO_ENDS = new int[0];
+
+    private char[][] chunks = NO_CHUNKS;
+    /**
+     * The position after the last character of each line.
+     */
+    private int[] ends = NO_ENDS;
+    private int length;
+    private int lineCount;
+    private int head;
+    private boolean isAcquired;
+
+    /**
+     * Returns the buffer of the current thread, empty, or a new buffer if it is already in use.
+     *
+     * @return a buffer, to be released after use.
+     */
+    public static OutputBuffer acquire() {
+        OutputBuffer buffer = POOL.get();
+        if (buffer.isAcquired) {
+            return new OutputBuffer();
+        }
+        buffer.isAcquired = true;
+        return buffer;
+    }
+
+    /**
+     * Clears the buffer, so that it can be acquired again. Its lines must not be read after it is released.
+     */
+    public void release() {
+        this.clear();
+        if (chunks.length > MAX_RETAINED_CHUNKS) {
+            chunks = Arrays.copyOf(chunks, MAX_RETAINED_CHUNKS);
+            ends = NO_ENDS;
+        }
+        isAcquired = false;
+    }
+
+    /**
+     * Returns a buffer of the given line.
+     *
+     * @param line the line.
+     * @return the buffer.
+     */
+    public static OutputBuffer of(String line) {
+        OutputBuffer buffer = new OutputBuffer();
+        buffer.add(line);
+        return buffer;
+    }
+
+    /**
+     * Appends each line of the given text, splitting it at line breaks, without a last line if the text ends with one.
+     *
+     * @param text the text.
+     */
+    public void addLines(String text) {
+        int start = 0;
+        int end;
+        while ((end = text.indexOf('\n', start)) >= 0) {
+            this.append(text, start, end > start && text.charAt(end - 1) == '\r' ? end - 1 : end);
+            start = end + 1;
+        }
+        if (start < text.length() || text.isEmpty()) {
+            this.append(text, start, text.length());
+        }
+    }
+
+    /**
+     * Appends every remaining line of the given buffer, copying its characters rather than the lines.
+     *
+     * @param other the buffer.
+     */
+    public void addAll(OutputBuffer other) {
+        int last = other.lineCount;
+        for (int i = other.head; i < last; i++) {
+            int start = other.startOf(i);
+            int end = other.ends[i];
+            while (start < end) {
+                char[] chunk = other.chunks[start / CHUNK_SIZE];
+                int offset = start % CHUNK_SIZE;
+                int count = Math.min(end - start, CHUNK_SIZE - offset);
+                this.appendChars(chunk, offset, count);
+                start += count;
+            }
+            this.endLine();
+        }
+    }
+
+    @Override
+    public boolean add(String line) {
+        this.append(line, 0, line.length());
+        return true;
+    }
+
+    private void append(String text, int from, int to) {
+        while (from < to) {
+            int offset = this.reserve();
+            int count = Math.min(to - from, CHUNK_SIZE - offset);
+            text.getChars(from, from + count, chunks[length / CHUNK_SIZE], offset);
+            length += count;
+            from += count;
+        }
+        this.endLine();
+    }
+
+    private void appendChars(char[] source, int from, int count) {
+        while (count > 0) {
+            int offset = this.reserve();
+            int copied = Math.min(count, CHUNK_SIZE - offset);
+            System.arraycopy(source, from, chunks[length / CHUNK_SIZE], offset, copied);
+            length += copied;
+            from += copied;
+            count -= copied;
+        }
+    }
+
+    /**
+     * Makes room for at least one more character, and returns its offset in its chunk.
+     */
+    private int reserve() {
+        int chunk = length / CHUNK_SIZE;
+        if (chunk == chunks.length) {
+            chunks = Arrays.copyOf(chunks, Math.max(4, chunks.length * 2));
+        }
+        if (chunks[chunk] == null) {
+            chunks[chunk] = new char[CHUNK_SIZE];
+        }
+        return length % CHUNK_SIZE;
+    }
+
+    private void endLine() {
+        if (lineCount == ends.length) {
+            ends = Arrays.copyOf(ends, Math.max(16, lineCount * 2));
+        }
+        ends[lineCount++] = length;
+    }
+
+    private int startOf(int line) {
+        return line == 0 ? 0 : ends[line - 1];
+    }
+
+    @Override
+    public String get(int index) {
+        if (index < 0 || index >= this.size()) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + this.size());
+        }
+        int line = head + index;
+        StringBuilder text = new StringBuilder(ends[line] - this.startOf(line));
+        this.appendLine(text, line);
+        return text.toString();
+    }
+
+    @Override
+    public int size() {
+        return lineCount - head;
+    }
+
+    @Override
+    public void clear() {
+        length = 0;
+        lineCount = 0;
+        head = 0;
+    }
+
+    private void appendLine(StringBuilder text, int line) {
+        int start = this.startOf(line);
+        int end = ends[line];
+        while (start < end) {
+            int offset = start % CHUNK_SIZE;
+            int count = Math.min(end - start, CHUNK_SIZE - offset);
+            text.append(chunks[start / CHUNK_SIZE], offset, count);
+            start += count;
+        }
+    }
+
+    /**
+     * Appends every line to the given text, each between the given prefix and suffix.
+     *
+     * @param text   the text to append to.
+     * @param prefix the text before each line.
+     * @param suffix the text after each line.
+     * @return the text.
+     */
+    public StringBuilder formatTo(StringBuilder text, String prefix, String suffix) {
+        for (int i = head; i < lineCount; i++) {
+            text.append(prefix);
+            this.appendLine(text, i);
+            text.append(suffix);
+        }
+        return text;
+    }
+
+    /**
+     * Returns the lines, joined by line breaks.
+     *
+     * @return the joined lines.
+     */
+    public String join() {
+        StringBuilder text = new StringBuilder(length - this.startOf(head) + this.size());
+        for (int i = head; i < lineCount; i++) {
+            if (i > head) {
+                text.append('\n');
+            }
+            this.appendLine(text, i);
+        }
+        return text.toString();
+    }
+
+    @Override
+    public boolean offer(String line) {
+        return this.add(line);
+    }
+
+    @Override
+    public String remove() {
+        if (this.isEmpty()) {
+            throw new NoSuchElementException();
+        }
+        return this.poll();
+    }
+
+    @Override
+    public String poll() {
+        if (this.isEmpty()) {
+            return null;
+        }
+        String line = this.get(0);
+        head++;
+        return line;
+    }
+
+    @Override
+    public String element() {
+        if (this.isEmpty()) {
+            throw new NoSuchElementException();
+        }
+        return this.get(0);
+    }
+
+    @Override
+    public String peek() {
+        return this.isEmpty() ? null : this.get(0);
+    }
+}
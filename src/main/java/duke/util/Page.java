@@ -0,0 +1,105 @@
+package duke.util;
+
+import java.util.HashMap;
+import java.util.Queue;
+import java.util.Set;
+
+/**
+ * A page of a listing, given by the {@code /page <n>} and {@code /size <k>} arguments of a command.
+ * Pages are numbered from 1, and a listing with neither argument is a single page of everything.
+ *
+ * @see TaskList#stringify(java.util.function.Consumer, Page)
+ */
+public class Page {
+    /**
+     * The whole listing, as a single page.
+     */
+    public static final Page ALL = new Page(1, Integer.MAX_VALUE);
+    public static final int DEFAULT_SIZE = 20;
+    public static final Set<String> TOKENS = Set.of("/page", "/size");
+
+    private final int number;
+    private final int size;
+
+    /**
+     * Creates a new Page.
+     *
+     * @param number the number of the page, from 1.
+     * @param size   the number of lines on a page.
+     */
+    public Page(int number, int size) {
+        if (number < 1) {
+            throw new IllegalArgumentException("Invalid page: " + number);
+        }
+        if (size < 1) {
+            throw new IllegalArgumentException("Invalid page size: " + size);
+        }
+        this.number = number;
+        this.size = size;
+    }
+
+    /**
+     * Returns the page given by the {@code /page} and {@code /size} arguments, as extracted by
+     * {@link Parser#extractTokenArgs(Set, Queue)} with the {@link #TOKENS}.
+     *
+     * @param args the arguments of the command.
+     * @return the page, or {@link #ALL} if neither argument was given.
+     */
+    public static Page of(HashMap<String, Queue<String>> args) {
+        if (!args.containsKey("/page") && !args.containsKey("/size")) {
+            return ALL;
+        }
+        return new Page(Page.parse(args, "/page", 1), Page.parse(args, "/size", DEFAULT_SIZE));
+    }
+
+    private static int parse(HashMap<String, Queue<String>> args, String token, int defaultValue) {
+        if (!args.containsKey(token)) {
+            return defaultValue;
+        }
+        String value = TokenQueue.join(args.get(token));
+        try {
+            return Integer.parseInt(value);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid " + token + " argument: " + value);
+        }
+    }
+
+    /**
+     * Returns the index of the first line of the page.
+     *
+     * @param total the number of lines in the listing.
+     * @return the index of the first line.
+     * @throws IllegalArgumentException if the listing ends before the page.
+     */
+    public int from(int total) {
+        long from = (long) (number - 1) * size;
+        if (from > 0 && from >= total) {
+            throw new IllegalArgumentException("Invalid page: " + number + " (of " + this.count(total) + ")");
+        }
+        return (int) from;
+    }
+
+    /**
+     * Returns the index after the last line of the page.
+     *
+     * @param total the number of lines in the listing.
+     * @return the end of the page.
+     */
+    public int to(int total) {
+        return (int) Math.min(total, (long) number * size);
+    }
+
+    /**
+     * Returns a description of the page for the header of a listing, or an empty string for the whole listing.
+     *
+     * @param total the number of lines in the listing.
+     * @return e.g. {@code " (page 2 of 5)"}.
+     */
+    public String describe(int total) {
+        return this == ALL ? "" : " (page " + number + " of " + this.count(total) + ")";
+    }
+
+    private int count(int total) {
+        return Math.max(1, (int) ((total + (long) size - 1) / size));
+    }
+}
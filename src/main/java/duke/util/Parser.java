@@ -1,14 +1,21 @@
 package duke.util;
 
 import duke.command.Command;
+import duke.command.CommandPlan;
 import duke.command.NestCommand;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
-import java.util.LinkedList;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Queue;
 import java.util.Set;
+import java.util.WeakHashMap;
 import java.util.function.Function;
 import java.util.stream.Collectors;
 
@@ -19,7 +26,25 @@ import java.util.stream.Collectors;
  * @see duke.command.Command
  */
 public class Parser {
-    private final HashMap<String, Command> baseCommandTokens;
+    /**
+     * The maximum number of compiled plans kept for each set of aliases.
+     */
+    private static final int PLAN_CACHE_SIZE = 256;
+    /**
+     * Stands in for a run of argument words in the shape of a line.
+     */
+    private static final String ARGUMENT_SLOT = "\u0000";
+
+    private final Trie<Command> baseCommandTrie = new Trie<>();
+    /**
+     * The names of every subcommand, at any depth, which are the only words that can change how a line is parsed.
+     */
+    private final Trie<String> subCommandTokens = new Trie<>();
+    /**
+     * Compiled plans of recently parsed lines, for each set of aliases that they were resolved with, so that sessions
+     * with their own aliases (e.g. the clients of a {@link duke.Server}) do not evict each other's plans.
+     */
+    private final Map<Trie<String>, PlanCache> planCaches = new WeakHashMap<>();
 
     /**
      * Creates a new Parser.
@@ -27,40 +52,136 @@ public class Parser {
      * @param commands The commands that the parser recognizes.
      */
     public Parser(Command[] commands) {
-        this.baseCommandTokens = Command.makeCommandMap(commands);
+        Command.makeCommandMap(commands).forEach(this.baseCommandTrie::put);
+        Parser.collectSubCommandTokens(commands, this.subCommandTokens);
+    }
+
+    private static void collectSubCommandTokens(Command[] commands, Trie<String> tokens) {
+        for (Command command : commands) {
+            if (command.hasSubCommands()) {
+                Collection<Command> subCommands = ((NestCommand) command).getSubCommands().values();
+                subCommands.forEach(subCommand -> tokens.put(subCommand.getName(), subCommand.getName()));
+                Parser.collectSubCommandTokens(subCommands.toArray(new Command[0]), tokens);
+            }
+        }
     }
 
     /**
-     * Given a list of input-words, and a command with subcommands, attempts to parse base arguments to their
-     * commands and recursively parse subcommand arguments to their subcommands.
+     * Parses a line of input into the commands that it executes.
+     * Lines that only differ in their arguments (and not in their command or subcommand tokens) share a compiled
+     * {@link CommandPlan}, which is cached until the aliases change.
      *
-     * @param words         the input, as whitespace-delimited words
-     * @param baseCmd       the base or root command
+     * @param line  the line of input.
+     * @param state the program state, with the aliases of the commands.
+     * @return the operation performed by the line.
      */
-    public Function<Stateful, Stateful> parseArgs(Queue<String> words, NestCommand baseCmd) {
-        Set<String> subCommandTokens = baseCmd.getSubCommands().keySet();
+    public Function<Stateful, Stateful> parseLine(String line, State state) {
+        return this.plan(this.tokenize(line), state);
+    }
 
-        HashMap<String, Queue<String>> subCommandMap = Parser.extractTokenArgs(subCommandTokens, words);
+    /**
+     * Splits a line of input into tokens and segments, the part of parsing that does not depend on the program state.
+     * This may be called from another thread than the one calling {@link #plan(TokenizedLine, State)}.
+     *
+     * @param line the line of input.
+     * @return the tokenized line.
+     */
+    public TokenizedLine tokenize(String line) {
+        TokenQueue words = TokenQueue.of(line);
+        TokenQueue args = words.isEmpty() ? words : words.slice(1, words.size());
+        // the arguments are split into segments: every subcommand token, and every run of words between them
+        int[] segments = new int[args.size() + 1];
+        int segmentCount = 0;
+        StringBuilder shape = new StringBuilder();
+        if (!words.isEmpty()) {
+            words.appendTo(0, shape);
+        }
+        boolean isPrevToken = true;
+        for (int i = 0; i < args.size(); i++) {
+            String token = args.lookUp(i, subCommandTokens);
+            if (token != null || isPrevToken) {
+                segments[segmentCount++] = i;
+                shape.append(' ').append(token != null ? token : ARGUMENT_SLOT);
+            }
+            isPrevToken = token != null;
+        }
+        segments[segmentCount] = args.size();
+        return new TokenizedLine(line, words.isEmpty() ? "" : words.get(0), args, segments, segmentCount,
+                shape.toString());
+    }
+
+    /**
+     * Resolves a tokenized line into the commands that it executes, with the current aliases.
+     *
+     * @param line  the tokenized line.
+     * @param state the program state, with the aliases of the commands.
+     * @return the operation performed by the line.
+     */
+    public synchronized Function<Stateful, Stateful> plan(TokenizedLine line, State state) {
+        PlanCache planCache = planCaches.computeIfAbsent(state.getAliasTrie(), aliases -> new PlanCache());
+        if (state.getAliasVersion() != planCache.aliasVersion) {
+            planCache.clear();
+            planCache.aliasVersion = state.getAliasVersion();
+        }
+        CommandPlan plan = planCache.get(line.shape);
+        if (plan == null) {
+            plan = this.compile(line.name, line.args, line.segments, line.segmentCount, state);
+            planCache.put(line.shape, plan);
+        }
+        CommandPlan compiled = plan;
+        return stateful -> compiled.execute(stateful, line.args, line.segments);
+    }
 
-        return getComposedStateOperation(baseCmd, subCommandMap);
+    private CommandPlan compile(String name, TokenQueue args, int[] segments, int segmentCount, State state) {
+        Command command = this.parseCommand(name, state);
+        List<Command> commands = new ArrayList<>();
+        List<TokenQueue> inputs = new ArrayList<>();
+        if (command.hasSubCommands()) {
+            if (args.isEmpty()) {
+                throw new IllegalArgumentException("Missing argument for command: "  + command.getName());
+            }
+            this.collectSteps(args.copy(), (NestCommand) command, commands, inputs);
+        } else {
+            commands.add(command);
+            inputs.add(args.copy());
+        }
+        // the parsed arguments are slices of whole segments, which are stored by segment rather than by word
+        int[] segmentIndexes = new int[args.size() + 1];
+        Arrays.fill(segmentIndexes, -1);
+        for (int i = 0; i <= segmentCount; i++) {
+            segmentIndexes[segments[i]] = i;
+        }
+        List<int[]> inputSegments = new ArrayList<>();
+        for (TokenQueue input : inputs) {
+            if (input == null) {
+                inputSegments.add(null);
+                continue;
+            }
+            int from = segmentIndexes[input.position() - args.position()];
+            int to = segmentIndexes[input.position() - args.position() + input.size()];
+            assert from >= 0 && to >= 0;
+            inputSegments.add(new int[]{from, to});
+        }
+        return new CommandPlan(commands, inputSegments);
     }
 
-    private Function<Stateful, Stateful> getComposedStateOperation(NestCommand baseCmd, HashMap<String, Queue<String>> subCommandMap) {
-        Function<Stateful, Stateful> baseFunction = baseCmd.getFurnishedFunction(subCommandMap.remove(""));
+    private void collectSteps(TokenQueue words, NestCommand baseCmd, List<Command> commands,
+                              List<TokenQueue> inputs) {
+        Set<String> subCommandTokens = baseCmd.getSubCommands().keySet();
 
+        HashMap<String, Queue<String>> subCommandMap = Parser.extractTokenArgs(subCommandTokens, words);
+
+        commands.add(baseCmd);
+        inputs.add((TokenQueue) subCommandMap.remove(""));
         for (Map.Entry<String, Queue<String>> entry : subCommandMap.entrySet()) {
-            String token = entry.getKey();
-            Queue<String> input = entry.getValue();
-            Command subCommand = baseCmd.getSubCommands().get(token);
-            Function<Stateful, Stateful> subFunction;
+            Command subCommand = baseCmd.getSubCommands().get(entry.getKey());
             if (subCommand.hasSubCommands()) {
-                subFunction = parseArgs(input, (NestCommand) subCommand);
+                this.collectSteps((TokenQueue) entry.getValue(), (NestCommand) subCommand, commands, inputs);
             } else {
-                subFunction = subCommand.getFurnishedFunction(input);
+                commands.add(subCommand);
+                inputs.add((TokenQueue) entry.getValue());
             }
-            baseFunction = baseFunction.andThen(subFunction);
         }
-        return baseFunction;
     }
 
     /*private static Queue<String> extractCommandWords(Queue<String> words, Set<String> otherTokens) {
@@ -88,32 +209,30 @@ public class Parser {
      * @return                  a map of tokens to their respective arguments
      */
     public static HashMap<String, Queue<String>> extractTokenArgs(Set<String> tokens, Queue<String> words, boolean allowOptional) {
+        TokenQueue input = TokenQueue.of(words);
         HashMap<String, Queue<String>> outputs = new HashMap<>();
         String prevToken = "";
-        Set<String> unmatchedTokens = new HashSet<>(tokens);
-        unmatchedTokens.add(prevToken);
-        Queue<String> subWords = new LinkedList<>();
-        while (!words.isEmpty()) {
-            String word = words.poll();
-            if (unmatchedTokens.contains(word)) {
-                if (!subWords.isEmpty()) {
-                    outputs.put(prevToken, subWords);
-                    unmatchedTokens.remove(prevToken);
+        int start = 0;
+        for (int i = 0; i < input.size(); i++) {
+            String token = Parser.matchUnmatchedToken(tokens, input, i, outputs);
+            if (token != null) {
+                if (i > start) {
+                    outputs.put(prevToken, input.slice(start, i));
                 }
-                prevToken = word;
-                subWords = new LinkedList<>();
-            } else {
-                subWords.add(word);
+                prevToken = token;
+                start = i + 1;
             }
         }
-        if (allowOptional || !subWords.isEmpty()) {
-            outputs.put(prevToken, subWords);
-            unmatchedTokens.remove(prevToken);
+        boolean isLastEmpty = start == input.size();
+        if (allowOptional || !isLastEmpty) {
+            outputs.put(prevToken, input.slice(start, input.size()));
         }
-        boolean isMissingOne = !unmatchedTokens.isEmpty() || subWords.isEmpty() || outputs.get("") == null;
+        boolean isMissingOne = !outputs.keySet().containsAll(tokens) || isLastEmpty || outputs.get("") == null;
         boolean isMissingAll = outputs.isEmpty();
         if (isMissingAll || (!allowOptional && isMissingOne)) {
-            if (unmatchedTokens.remove("")){
+            Set<String> unmatchedTokens = new HashSet<>(tokens);
+            unmatchedTokens.removeAll(outputs.keySet());
+            if (!outputs.containsKey("")) {
                 unmatchedTokens.add("<base argument>");
             }
             throw new IllegalArgumentException("Missing argument for: " + unmatchedTokens);
@@ -121,6 +240,19 @@ public class Parser {
         return outputs;
     }
 
+    /**
+     * Returns the token at the given position of the input, if it is one of the tokens that has no argument yet.
+     */
+    private static String matchUnmatchedToken(Set<String> tokens, TokenQueue input, int index,
+                                              HashMap<String, Queue<String>> outputs) {
+        for (String token : tokens) {
+            if (input.matches(index, token) && !outputs.containsKey(token)) {
+                return token;
+            }
+        }
+        return null;
+    }
+
     public static HashMap<String, Queue<String>> extractTokenArgs(Set<String> tokens, Queue<String> words) {
         return extractTokenArgs(tokens, words, true);
     }
@@ -137,7 +269,7 @@ public class Parser {
         return extractTokenArgs(tokens, words, false).entrySet().stream().collect(
                 Collectors.toMap(
                         Map.Entry::getKey,
-                        e -> String.join(" ", e.getValue()),
+                        e -> TokenQueue.join(e.getValue()),
                         (a, b) -> b,
                         HashMap::new
                 )
@@ -146,22 +278,112 @@ public class Parser {
 
     /**
      * Parses the specified command name and returns the corresponding command.
+     * The name is resolved, in order, as the exact name of a command, the exact name of an alias, or the prefix of the
+     * names of commands and aliases that all resolve to the same command. A prefix of a single name is resolved in
+     * time proportional to the length of the name, and any other prefix in time proportional to the names it matches.
      *
-     * @param name The name of the command to be parsed.
+     * @param name  The name of the command to be parsed.
+     * @param state The program state, with the aliases of the commands.
      * @return The command corresponding to the specified name.
+     * @throws IllegalArgumentException if the name is empty, or no command matches it, or more than one does.
      */
-    public Command parseCommand(String name, HashMap<String, String> aliases) {
-        if (baseCommandTokens.containsKey(name)) {
-            return baseCommandTokens.get(name);
+    public Command parseCommand(String name, State state) {
+        if (name.isEmpty()) {
+            throw new IllegalArgumentException("Command not found: (empty name)");
         }
-        if (aliases.containsKey(name)) {
-            return baseCommandTokens.get(aliases.get(name));
+        Command command = baseCommandTrie.get(name);
+        if (command != null) {
+            return command;
         }
-        for (Command command : baseCommandTokens.values()) {
-            if (command.getName().contains(name)) {
-                return command;
-            }
+        Trie<String> aliases = state.getAliasTrie();
+        if (aliases.get(name) != null) {
+            return this.parseAlias(name, aliases.get(name));
+        }
+        int commandCount = baseCommandTrie.countWithPrefix(name);
+        int aliasCount = aliases.countWithPrefix(name);
+        if (commandCount == 1 && aliasCount == 0) {
+            return baseCommandTrie.getUniqueWithPrefix(name);
+        } else if (commandCount == 0 && aliasCount == 1) {
+            return this.parseAlias(name, aliases.getUniqueWithPrefix(name));
+        } else if (commandCount == 0 && aliasCount == 0) {
+            throw new IllegalArgumentException("Command not found: " + name);
+        }
+        // several names, which are only ambiguous if they resolve to different commands
+        List<String> candidates = new ArrayList<>(baseCommandTrie.keysWithPrefix(name));
+        Set<Command> targets = new HashSet<>();
+        for (String candidate : candidates) {
+            targets.add(baseCommandTrie.get(candidate));
+        }
+        boolean isResolved = true;
+        for (String alias : aliases.keysWithPrefix(name)) {
+            candidates.add(alias);
+            Command target = baseCommandTrie.get(aliases.get(alias));
+            // an alias of a missing command is a different target from every command
+            isResolved &= target != null;
+            targets.add(target);
+        }
+        if (isResolved && targets.size() == 1) {
+            return targets.iterator().next();
+        }
+        Collections.sort(candidates);
+        throw new IllegalArgumentException("Ambiguous command: " + name + " could be " + String.join(", ", candidates));
+    }
+
+    private Command parseAlias(String name, String commandName) {
+        Command command = baseCommandTrie.get(commandName);
+        if (command == null) {
+            throw new IllegalArgumentException("Command not found: " + commandName + " (aliased by " + name + ")");
+        }
+        return command;
+    }
+
+    /**
+     * A line of input split into tokens and segments, ready to be resolved by {@link #plan(TokenizedLine, State)}.
+     */
+    public static class TokenizedLine {
+        private final String line;
+        private final String name;
+        private final TokenQueue args;
+        private final int[] segments;
+        private final int segmentCount;
+        private final String shape;
+
+        private TokenizedLine(String line, String name, TokenQueue args, int[] segments, int segmentCount,
+                              String shape) {
+            this.line = line;
+            this.name = name;
+            this.args = args;
+            this.segments = segments;
+            this.segmentCount = segmentCount;
+            this.shape = shape;
+        }
+
+        /**
+         * Returns the line of input.
+         *
+         * @return the line, as it was entered.
+         */
+        public String getLine() {
+            return line;
+        }
+    }
+
+    /**
+     * Compiled plans of recently parsed lines, keyed by the shape of the line, in least recently used order, with the
+     * version of the aliases that they were resolved with.
+     */
+    private static class PlanCache extends LinkedHashMap<String, CommandPlan> {
+        private static final long serialVersionUID = 1L;
+
+        private int aliasVersion;
+
+        private PlanCache() {
+            super(16, 0.75f, true);
+        }
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, CommandPlan> eldest) {
+            return size() > PLAN_CACHE_SIZE;
         }
-        throw new IllegalArgumentException("Command not found: " + name);
     }
 }
@@ -0,0 +1,309 @@
+package duke.util;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.RandomAccess;
+import java.util.function.IntConsumer;
+
+/**
+ * Immutable list that shares structure with the lists it is derived from, so that a copy of a list of n elements with
+ * an element appended or replaced is made in O(log n) time, rather than by copying the whole list.
+ * <p>
+ * The elements are stored in a tree of arrays of {@value #WIDTH} elements (or children), with the last (partial)
+ * array kept apart as the tail, so that appending usually only copies the tail. Replacing an element copies the
+ * arrays on the path to it, and every other array is shared with the original list. Removing elements moves every
+ * element after them to another array, so only the arrays before the first one removed are shared; see
+ * {@link #without(int[])}.
+ *
+ * @param <E> the type of the elements.
+ * @see TaskList#setConcurrent(boolean)
+ */
+public class PersistentVector<E> extends AbstractList<E> implements RandomAccess {
+    private static final int BITS = 5;
+    private static final int WIDTH = 1 << BITS;
+    private static final int MASK = WIDTH - 1;
+    private static final PersistentVector<?> EMPTY = new PersistentVector<>(0, BITS, new Object[WIDTH], new Object[0],
+            null);
+
+    private final int size;
+    /**
+     * The number of bits of an index that select a child of the root, plus {@link #BITS}.
+     */
+    private final int shift;
+    private final Object[] root;
+    private final Object[] tail;
+    /**
+     * The list that the elements left null in the arrays are read from, at the same index, or null if there is none.
+     */
+    private final List<? extends E> base;
+
+    private PersistentVector(int size, int shift, Object[] root, Object[] tail, List<? extends E> base) {
+        this.size = size;
+        this.shift = shift;
+        this.root = root;
+        this.tail = tail;
+        this.base = base;
+    }
+
+    /**
+     * Returns the empty list.
+     *
+     * @param <E> the type of the elements.
+     * @return the empty list.
+     */
+    @SuppressWarnings("unchecked")
+    public static <E> PersistentVector<E> empty() {
+        return (PersistentVector<E>) EMPTY;
+    }
+
+    /**
+     * Returns a list of the given elements.
+     *
+     * @param elements the elements, in order.
+     * @param <E>      the type of the elements.
+     * @return the list of the elements.
+     */
+    public static <E> PersistentVector<E> copyOf(Collection<? extends E> elements) {
+        PersistentVector<E> vector = PersistentVector.empty();
+        for (E element : elements) {
+            vector = vector.plus(element);
+        }
+        return vector;
+    }
+
+    /**
+     * Returns a list of the given elements, which are only read from the given list when they are first needed, so
+     * that the list is made without reading any of them. Every list derived from it reads from the given list too.
+     *
+     * @param elements the elements, in order, which must not be null and must never change.
+     * @param <E>      the type of the elements.
+     * @return the list of the elements.
+     */
+    public static <E> PersistentVector<E> lazyCopyOf(List<? extends E> elements) {
+        int size = elements.size();
+        int tailOffset = size < WIDTH ? 0 : ((size - 1) >>> BITS) << BITS;
+        int leaves = tailOffset >>> BITS;
+        int shift = BITS;
+        while (leaves > 1 << shift) {
+            shift += BITS;
+        }
+        // every array of the tree is the same empty array, as none of its elements have been read
+        Object[] root = PersistentVector.emptyNode(shift, leaves, new Object[WIDTH]);
+        return new PersistentVector<>(size, shift, root, new Object[size - tailOffset], elements);
+    }
+
+    private static Object[] emptyNode(int level, int leaves, Object[] leaf) {
+        Object[] node = new Object[WIDTH];
+        int leavesPerChild = 1 << (level - BITS);
+        for (int i = 0; leaves > 0; i++) {
+            node[i] = level == BITS ? leaf : PersistentVector.emptyNode(level - BITS,
+                    Math.min(leaves, leavesPerChild), leaf);
+            leaves -= leavesPerChild;
+        }
+        return node;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public E get(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+        }
+        Object element = this.arrayFor(index)[index & MASK];
+        return element == null && base != null ? base.get(index) : (E) element;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns a copy of this list with the given element appended.
+     *
+     * @param element the element.
+     * @return the longer list.
+     */
+    public PersistentVector<E> plus(E element) {
+        if (size - this.tailOffset() < WIDTH) {
+            Object[] newTail = Arrays.copyOf(tail, tail.length + 1);
+            newTail[tail.length] = element;
+            return new PersistentVector<>(size + 1, shift, root, newTail, base);
+        }
+        // the tail is full, so it moves into the tree
+        Object[] newRoot;
+        int newShift = shift;
+        if ((size >>> BITS) > (1 << shift)) {
+            newRoot = new Object[WIDTH];
+            newRoot[0] = root;
+            newRoot[1] = PersistentVector.newPath(shift, tail);
+            newShift += BITS;
+        } else {
+            newRoot = this.pushTail(shift, root, tail);
+        }
+        return new PersistentVector<>(size + 1, newShift, newRoot, new Object[]{element}, base);
+    }
+
+    /**
+     * Returns a copy of this list with the element at the given index replaced.
+     *
+     * @param index   the index of the element.
+     * @param element the new element.
+     * @return the changed list.
+     */
+    public PersistentVector<E> with(int index, E element) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+        }
+        if (index >= this.tailOffset()) {
+            Object[] newTail = tail.clone();
+            newTail[index & MASK] = element;
+            return new PersistentVector<>(size, shift, root, newTail, base);
+        }
+        return new PersistentVector<>(size, shift, PersistentVector.replace(shift, root, index, element), tail, base);
+    }
+
+    /**
+     * Returns a list of the first elements of this list, sharing every full array before them.
+     *
+     * @param count the number of elements.
+     * @return the shorter list.
+     */
+    public PersistentVector<E> take(int count) {
+        if (count < 0 || count > size) {
+            throw new IndexOutOfBoundsException("Count: " + count + ", Size: " + size);
+        }
+        if (count == size) {
+            return this;
+        }
+        if (count == 0) {
+            return PersistentVector.empty();
+        }
+        if (count > this.tailOffset()) {
+            return new PersistentVector<>(count, shift, root, Arrays.copyOf(tail, count - this.tailOffset()), base);
+        }
+        int newTailOffset = count <= WIDTH ? 0 : ((count - 1) >>> BITS) << BITS;
+        Object[] newTail = Arrays.copyOf(this.arrayFor(count - 1), count - newTailOffset);
+        if (newTailOffset == 0) {
+            return new PersistentVector<>(count, BITS, new Object[WIDTH], newTail, base);
+        }
+        Object[] newRoot = PersistentVector.trim(shift, root, newTailOffset - 1);
+        int newShift = shift;
+        while (newShift > BITS && newRoot[1] == null) {
+            newRoot = (Object[]) newRoot[0];
+            newShift -= BITS;
+        }
+        return new PersistentVector<>(count, newShift, newRoot, newTail, base);
+    }
+
+    /**
+     * Returns a copy of this list without the elements at the given indexes. The arrays before the first of the
+     * indexes are shared, but every element after it is appended to the copy again, so removing takes O(n - first)
+     * time rather than O(log n): deleting near the start of a long list copies about as much as copying the list.
+     *
+     * @param indexes the indexes of the elements, in increasing order.
+     * @return the shorter list.
+     */
+    public PersistentVector<E> without(int[] indexes) {
+        if (indexes.length == 0) {
+            return this;
+        }
+        PersistentVector<E> vector = this.take(indexes[0]);
+        int next = 0;
+        for (int i = indexes[0]; i < size; i++) {
+            if (next < indexes.length && indexes[next] == i) {
+                next++;
+            } else {
+                vector = vector.plus(this.get(i));
+            }
+        }
+        return vector;
+    }
+
+    /**
+     * Calls the given action with every index of this list at which the element is not the same (identical) element
+     * as in the other list, including every index past the end of the other list. Arrays that the lists share are
+     * skipped without comparing their elements.
+     *
+     * @param other  the other list.
+     * @param action the action to be called with each index, in increasing order.
+     */
+    public void forEachDifference(PersistentVector<E> other, IntConsumer action) {
+        for (int start = 0; start < size; start += WIDTH) {
+            Object[] array = this.arrayFor(start);
+            Object[] otherArray = start < other.size ? other.arrayFor(start) : null;
+            if (array == otherArray) {
+                continue;
+            }
+            int end = Math.min(WIDTH, size - start);
+            for (int i = 0; i < end; i++) {
+                if (otherArray == null || start + i >= other.size || array[i] != otherArray[i]
+                        || array[i] == null && base != other.base) {
+                    action.accept(start + i);
+                }
+            }
+        }
+    }
+
+    private int tailOffset() {
+        return size < WIDTH ? 0 : ((size - 1) >>> BITS) << BITS;
+    }
+
+    private Object[] arrayFor(int index) {
+        if (index >= this.tailOffset()) {
+            return tail;
+        }
+        Object[] node = root;
+        for (int level = shift; level > 0; level -= BITS) {
+            node = (Object[]) node[(index >>> level) & MASK];
+        }
+        return node;
+    }
+
+    private Object[] pushTail(int level, Object[] parent, Object[] tailNode) {
+        int child = ((size - 1) >>> level) & MASK;
+        Object[] node = parent.clone();
+        if (level == BITS) {
+            node[child] = tailNode;
+        } else {
+            Object[] below = (Object[]) parent[child];
+            node[child] = below != null
+                    ? this.pushTail(level - BITS, below, tailNode)
+                    : PersistentVector.newPath(level - BITS, tailNode);
+        }
+        return node;
+    }
+
+    private static Object[] newPath(int level, Object[] node) {
+        if (level == 0) {
+            return node;
+        }
+        Object[] path = new Object[WIDTH];
+        path[0] = PersistentVector.newPath(level - BITS, node);
+        return path;
+    }
+
+    /**
+     * Copies the path to the given index, without any array after it.
+     */
+    private static Object[] trim(int level, Object[] node, int last) {
+        Object[] copy = new Object[WIDTH];
+        int child = (last >>> level) & MASK;
+        System.arraycopy(node, 0, copy, 0, child);
+        copy[child] = level == BITS ? node[child] : PersistentVector.trim(level - BITS, (Object[]) node[child], last);
+        return copy;
+    }
+
+    private static Object[] replace(int level, Object[] node, int index, Object element) {
+        Object[] copy = node.clone();
+        if (level == 0) {
+            copy[index & MASK] = element;
+        } else {
+            int child = (index >>> level) & MASK;
+            copy[child] = PersistentVector.replace(level - BITS, (Object[]) node[child], index, element);
+        }
+        return copy;
+    }
+}
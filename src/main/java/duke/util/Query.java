@@ -0,0 +1,261 @@
+package duke.util;
+
+import duke.task.Deadline;
+import duke.task.Event;
+import duke.task.Task;
+import duke.task.ToDo;
+
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Queue;
+import java.util.Set;
+
+/**
+ * A query over the tasks, given by the {@code /type}, {@code /done}, {@code /before}, {@code /match} and
+ * {@code /sort} arguments of {@code list}, e.g. {@code list /type deadline /done false /before 2026-12-01}.
+ * Every filter given must hold for a task to be listed.
+ * <p>
+ * The query only decides which tasks match, and in what order; {@link TaskList#query(Query, boolean,
+ * java.util.function.Consumer, Page)} decides how to find the candidates, using an index if one covers a filter.
+ */
+public class Query {
+    public static final Set<String> TOKENS = Set.of("/type", "/done", "/before", "/match", "/sort");
+
+    private final Class<? extends Task> type;
+    private final Boolean isDone;
+    private final LocalDate before;
+    /**
+     * The term that descriptions must contain, in lower case.
+     */
+    private final String match;
+    private final String sort;
+
+    private Query(Class<? extends Task> type, Boolean isDone, LocalDate before, String match, String sort) {
+        this.type = type;
+        this.isDone = isDone;
+        this.before = before;
+        this.match = match;
+        this.sort = sort;
+    }
+
+    /**
+     * Returns the query given by the arguments, as extracted by {@link Parser#extractTokenArgs(Set, Queue)} with the
+     * {@link #TOKENS}.
+     *
+     * @param args the arguments of the command.
+     * @return the query, which is {@linkplain #isEmpty() empty} if none of the arguments were given.
+     */
+    public static Query of(HashMap<String, Queue<String>> args) {
+        return new Query(Query.parseType(Query.get(args, "/type")),
+                Query.parseDone(Query.get(args, "/done")),
+                Query.parseDate(Query.get(args, "/before")),
+                Query.parseMatch(Query.get(args, "/match")),
+                Query.parseSort(Query.get(args, "/sort")));
+    }
+
+    private static String get(HashMap<String, Queue<String>> args, String token) {
+        if (!args.containsKey(token)) {
+            return null;
+        }
+        String value = TokenQueue.join(args.get(token)).strip();
+        if (value.isEmpty()) {
+            throw new IllegalArgumentException("Missing " + token + " argument");
+        }
+        return value;
+    }
+
+    private static Class<? extends Task> parseType(String value) {
+        if (value == null) {
+            return null;
+        }
+        switch (value.toLowerCase()) {
+        case "todo":
+            return ToDo.class;
+        case "deadline":
+            return Deadline.class;
+        case "event":
+            return Event.class;
+        default:
+            throw new IllegalArgumentException("Invalid /type argument: " + value);
+        }
+    }
+
+    private static Boolean parseDone(String value) {
+        if (value == null) {
+            return null;
+        }
+        switch (value.toLowerCase()) {
+        case "true":
+            return true;
+        case "false":
+            return false;
+        default:
+            throw new IllegalArgumentException("Invalid /done argument: " + value);
+        }
+    }
+
+    private static LocalDate parseDate(String value) {
+        if (value == null) {
+            return null;
+        }
+        try {
+            return LocalDate.parse(value);
+        } catch (DateTimeParseException e) {
+            throw new IllegalArgumentException("Invalid /before argument: " + value);
+        }
+    }
+
+    private static String parseMatch(String value) {
+        return value == null ? null : value.toLowerCase();
+    }
+
+    private static String parseSort(String value) {
+        if (value == null) {
+            return null;
+        }
+        switch (value.toLowerCase()) {
+        case "by":
+        case "desc":
+        case "done":
+            return value.toLowerCase();
+        default:
+            throw new IllegalArgumentException("Invalid /sort argument: " + value);
+        }
+    }
+
+    /**
+     * Returns whether the query has neither filters nor an order, and so lists every task as {@code list} does.
+     *
+     * @return true if the query is empty.
+     */
+    public boolean isEmpty() {
+        return !this.hasFilters() && sort == null;
+    }
+
+    /**
+     * Returns whether the query has any filters, rather than listing every task (in some order).
+     *
+     * @return true if some tasks may not match.
+     */
+    public boolean hasFilters() {
+        return type != null || isDone != null || before != null || match != null;
+    }
+
+    /**
+     * Returns whether the given task matches every filter of the query.
+     *
+     * @param task the task.
+     * @return true if the task is to be listed.
+     */
+    public boolean test(Task task) {
+        if (type != null && !type.isInstance(task)) {
+            return false;
+        }
+        if (isDone != null && task.isDone() != isDone) {
+            return false;
+        }
+        if (before != null && !Query.endsBefore(task, before)) {
+            return false;
+        }
+        return match == null || task.getDesc().toLowerCase().contains(match);
+    }
+
+    /**
+     * Returns whether the task has a date strictly before the given date; an event only if it ends before it, as in
+     * {@link IntervalIndex#forEachEndingBefore(int, java.util.function.IntConsumer)}.
+     */
+    private static boolean endsBefore(Task task, LocalDate date) {
+        if (task instanceof Deadline) {
+            return ((Deadline) task).getBy().isBefore(date);
+        } else if (task instanceof Event) {
+            return ((Event) task).getTo().isBefore(date);
+        }
+        return false;
+    }
+
+    /**
+     * Returns the order of the tasks listed, or null to list them in the order they were added.
+     *
+     * @return the comparator of the tasks.
+     */
+    public Comparator<Task> getOrder() {
+        if (sort == null) {
+            return null;
+        }
+        switch (sort) {
+        case "by":
+            // tasks without a date last
+            return Comparator.comparing(Query::dateOf, Comparator.nullsLast(Comparator.naturalOrder()));
+        case "desc":
+            return Comparator.comparing(task -> task.getDesc().toLowerCase());
+        default:
+            return Comparator.comparing(Task::isDone);
+        }
+    }
+
+    private static LocalDate dateOf(Task task) {
+        if (task instanceof Deadline) {
+            return ((Deadline) task).getBy();
+        } else if (task instanceof Event) {
+            return ((Event) task).getFrom();
+        }
+        return null;
+    }
+
+    public Boolean getDone() {
+        return isDone;
+    }
+
+    public LocalDate getBefore() {
+        return before;
+    }
+
+    public String getMatch() {
+        return match;
+    }
+
+    /**
+     * Returns a description of each filter of the query, for {@code explain}.
+     *
+     * @return the descriptions, or an empty list if every task matches.
+     */
+    public List<String> describeFilters() {
+        List<String> filters = new ArrayList<>();
+        if (type != null) {
+            filters.add("type is " + type.getSimpleName().toLowerCase());
+        }
+        if (isDone != null) {
+            filters.add(isDone ? "done" : "not done");
+        }
+        if (before != null) {
+            filters.add("before " + before);
+        }
+        if (match != null) {
+            filters.add("description contains \"" + match + "\"");
+        }
+        return filters;
+    }
+
+    /**
+     * Returns a description of the order of the query, for {@code explain}.
+     *
+     * @return the description.
+     */
+    public String describeOrder() {
+        if (sort == null) {
+            return "by index";
+        }
+        switch (sort) {
+        case "by":
+            return "by date";
+        case "desc":
+            return "by description";
+        default:
+            return "by status";
+        }
+    }
+}
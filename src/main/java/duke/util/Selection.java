@@ -0,0 +1,189 @@
+package duke.util;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Queue;
+import java.util.RandomAccess;
+import java.util.function.IntConsumer;
+
+/**
+ * A set of task indexes, given as arguments of a command such as {@code delete 5-900} or {@code mark 1-10 20 30-40}.
+ * Each argument is either an index or an inclusive range of indexes, numbered from 1 as in {@code list}, and the
+ * indexes are kept as the bits of a bitmap, so that a range of any length costs a bit per task.
+ *
+ * @see TaskList#delete(Queue)
+ * @see TaskList#toggleMark(Queue, Boolean)
+ */
+public class Selection {
+    private final BitSet indexes;
+    private final int count;
+
+    private Selection(BitSet indexes) {
+        this.indexes = indexes;
+        this.count = indexes.cardinality();
+    }
+
+    /**
+     * Parses the indexes and ranges of indexes in the given arguments.
+     *
+     * @param arguments the arguments, such as {@code 5}, or {@code 30-40}.
+     * @param size      the number of tasks.
+     * @return the selection of the indexes, from 0.
+     * @throws IllegalArgumentException if an argument is not an index or range, or is past the last task.
+     */
+    public static Selection parse(Queue<String> arguments, int size) {
+        BitSet indexes = new BitSet();
+        for (String argument : arguments) {
+            // from 1, so that a negative index is not taken for a range
+            int dash = argument.indexOf('-', 1);
+            int from;
+            int to;
+            try {
+                from = Integer.parseInt(dash < 0 ? argument : argument.substring(0, dash));
+                to = dash < 0 ? from : Integer.parseInt(argument.substring(dash + 1));
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Invalid index: " + argument);
+            }
+            if (from < 1 || to < from) {
+                throw new IllegalArgumentException("Invalid index: " + argument);
+            }
+            if (to > size) {
+                throw new IllegalArgumentException("Task not found: " + to);
+            }
+            indexes.set(from - 1, to);
+        }
+        return new Selection(indexes);
+    }
+
+    /**
+     * Returns a selection of the given indexes.
+     *
+     * @param indexes the indexes, from 0.
+     * @return the selection.
+     */
+    public static Selection of(int... indexes) {
+        BitSet bits = new BitSet();
+        for (int index : indexes) {
+            bits.set(index);
+        }
+        return new Selection(bits);
+    }
+
+    /**
+     * Returns the number of indexes selected.
+     *
+     * @return the number of indexes.
+     */
+    public int count() {
+        return count;
+    }
+
+    public boolean isEmpty() {
+        return count == 0;
+    }
+
+    public boolean contains(int index) {
+        return indexes.get(index);
+    }
+
+    /**
+     * Returns the first index selected from the given index on.
+     *
+     * @param from the index to start from.
+     * @return the index, or -1 if there is none.
+     */
+    public int next(int from) {
+        return indexes.nextSetBit(from);
+    }
+
+    /**
+     * Passes every index selected to the given action, in increasing order.
+     *
+     * @param action the action to perform on the indexes.
+     */
+    public void forEach(IntConsumer action) {
+        for (int i = indexes.nextSetBit(0); i >= 0; i = indexes.nextSetBit(i + 1)) {
+            action.accept(i);
+        }
+    }
+
+    /**
+     * Returns the indexes selected, in increasing order.
+     *
+     * @return the indexes.
+     */
+    public int[] toArray() {
+        return indexes.stream().toArray();
+    }
+
+    /**
+     * Returns the indexes selected, in decreasing order, which is the order they can be removed from a list one at a
+     * time.
+     *
+     * @return the indexes.
+     */
+    public List<Integer> toDescendingList() {
+        List<Integer> list = new ArrayList<>(count);
+        for (int i = indexes.length() - 1; i >= 0; i = indexes.previousSetBit(i - 1)) {
+            list.add(i);
+        }
+        return list;
+    }
+
+    /**
+     * Removes the elements at the selected indexes from the given list, moving every element kept at most once,
+     * instead of once for each element removed before it.
+     *
+     * @param list the list.
+     */
+    public <E> void removeFrom(List<E> list) {
+        int first = indexes.nextSetBit(0);
+        if (first < 0 || first >= list.size()) {
+            return;
+        }
+        if (list instanceof ColumnarTaskList) {
+            ((ColumnarTaskList) list).removeAll(this);
+        } else if (list instanceof MappedTaskList) {
+            ((MappedTaskList) list).removeAll(this);
+        } else if (list instanceof RandomAccess) {
+            int kept = first;
+            for (int i = first + 1; i < list.size(); i++) {
+                if (!indexes.get(i)) {
+                    list.set(kept++, list.get(i));
+                }
+            }
+            list.subList(kept, list.size()).clear();
+        } else {
+            Iterator<E> elements = list.iterator();
+            for (int i = 0; elements.hasNext(); i++) {
+                elements.next();
+                if (indexes.get(i)) {
+                    elements.remove();
+                }
+            }
+        }
+    }
+
+    /**
+     * Removes the bits at the selected indexes from the given bitmap, shifting the bits after them down, as
+     * {@link #removeFrom(List)} does for a list.
+     *
+     * @param bits the bitmap.
+     */
+    public void removeFrom(BitSet bits) {
+        int first = indexes.nextSetBit(0);
+        if (first < 0) {
+            return;
+        }
+        int length = bits.length();
+        int kept = first;
+        for (int i = first; i < length; i++) {
+            if (!indexes.get(i)) {
+                bits.set(kept++, bits.get(i));
+            }
+        }
+        bits.clear(kept, Math.max(kept, length));
+    }
+}
@@ -1,6 +1,7 @@
 package duke.util;
 
 import java.util.HashMap;
+import java.util.Map;
 
 /**
  * State encapsulates (modifications to) the program state
@@ -10,15 +11,24 @@ import java.util.HashMap;
 public class State {
 
     private final boolean doQuit;
-    private final HashMap<String, String> aliases;
+    /**
+     * The command aliases, shared between successive states. Kept in a {@link Trie} so that abbreviated aliases can
+     * be resolved by {@link Parser#parseCommand(String, State)}.
+     */
+    private final Trie<String> aliases;
 
     public State(boolean doQuit, HashMap<String, String> aliases) {
-        this.doQuit = doQuit;
-        this.aliases = aliases;
+        this(doQuit, new Trie<>());
+        aliases.forEach(this.aliases::put);
     }
 
     public State (boolean doQuit) {
-        this(doQuit, new HashMap<>());
+        this(doQuit, new Trie<>());
+    }
+
+    private State(boolean doQuit, Trie<String> aliases) {
+        this.doQuit = doQuit;
+        this.aliases = aliases;
     }
 
     public State next(boolean doQuit) {
@@ -29,7 +39,51 @@ public class State {
         return doQuit;
     }
 
-    public HashMap<String, String> getAliases() {
+    /**
+     * Returns the command aliases, sorted by alias.
+     *
+     * @return a copy of the aliases, mapped to the names of their commands.
+     */
+    public Map<String, String> getAliases() {
+        return aliases.toMap();
+    }
+
+    /**
+     * Returns the alias trie, for resolving (abbreviated) aliases.
+     *
+     * @return the aliases, mapped to the names of their commands.
+     */
+    public Trie<String> getAliasTrie() {
         return aliases;
     }
+
+    /**
+     * Returns a version number of the aliases, which changes whenever an alias is added or removed.
+     *
+     * @return the version of the aliases.
+     */
+    public int getAliasVersion() {
+        return aliases.getModCount();
+    }
+
+    /**
+     * Adds or replaces an alias.
+     *
+     * @param alias   the alias.
+     * @param command the name of the command.
+     * @return the name of the command the alias previously stood for, or null if it is a new alias.
+     */
+    public String addAlias(String alias, String command) {
+        return aliases.put(alias, command);
+    }
+
+    /**
+     * Removes an alias.
+     *
+     * @param alias the alias.
+     * @return the name of the command the alias stood for, or null if there was no such alias.
+     */
+    public String removeAlias(String alias) {
+        return aliases.remove(alias);
+    }
 }
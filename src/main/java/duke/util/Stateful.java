@@ -1,15 +1,22 @@
 package duke.util;
 
 import java.util.Queue;
+import java.util.function.Consumer;
 
 /**
  * Wrapper class for command functions to hold whitespace-delimited string input-output *and* side-effects
  * (e.g. modifications to execution flow)
+ * <p>
+ * Output lines are added to the output queue (usually an {@link OutputBuffer}), unless the Stateful was created with
+ * a sink, in which case every line is handed to the sink as soon as it is written (e.g. printed), and the queue is
+ * left empty. Commands with long outputs can write their lines to {@link #getSink()} one at a time, without
+ * collecting them first.
  *
  * @see State
  */
 public class Stateful {
     private final Queue<String> outputs;
+    private final Consumer<String> sink;
     private final State state;
 
     /**
@@ -19,7 +26,19 @@ public class Stateful {
      * @param state  (Modified) State of program
      */
     public Stateful(Queue<String> outputs, State state) {
+        this(outputs, null, state);
+    }
+
+    /**
+     * Creates a new Stateful that streams its output.
+     *
+     * @param outputs Lines of string of outputs, which are left empty
+     * @param sink    The consumer of each line of output, as it is written, or null to add them to the outputs
+     * @param state   (Modified) State of program
+     */
+    public Stateful(Queue<String> outputs, Consumer<String> sink, State state) {
         this.outputs = outputs;
+        this.sink = sink;
         this.state = state;
     }
 
@@ -31,13 +50,24 @@ public class Stateful {
      * @return          A new Stateful with the given changes.
      */
     public Stateful next(String output, State state) {
-        this.outputs.add(output);
-        return new Stateful(this.outputs, state);
+        if (this.sink == null) {
+            this.outputs.add(output);
+        } else {
+            this.sink.accept(output);
+        }
+        return new Stateful(this.outputs, this.sink, state);
     }
 
     public Stateful next(Queue<String> outputs, State state) {
-        this.outputs.addAll(outputs);
-        return new Stateful(this.outputs, state);
+        if (this.sink != null) {
+            outputs.forEach(this.sink);
+        } else if (this.outputs instanceof OutputBuffer && outputs instanceof OutputBuffer) {
+            // copies the characters of the lines, without making a string of each
+            ((OutputBuffer) this.outputs).addAll((OutputBuffer) outputs);
+        } else {
+            this.outputs.addAll(outputs);
+        }
+        return new Stateful(this.outputs, this.sink, state);
     }
 
     public Stateful next(String output) {
@@ -52,7 +82,16 @@ public class Stateful {
         return outputs;
     }
 
+    /**
+     * Returns the consumer of the lines of output, to write them one at a time.
+     *
+     * @return The sink of the output.
+     */
+    public Consumer<String> getSink() {
+        return sink != null ? sink : outputs::add;
+    }
+
     public State getState() {
         return state;
     }
-}
\ No newline at end of file
+}
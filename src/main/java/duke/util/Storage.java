@@ -2,23 +2,87 @@ package duke.util;
 
 import duke.task.Task;
 
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
 import java.io.FileInputStream;
 import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.ObjectInputStream;
-import java.io.ObjectOutputStream;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
 
 /**
  * Utility used by TaskList to manage file I/O and data storage.
  * The default save location is {@code data.txt}.
+ * <p>
+ * By default, storage is journaled: changes to single tasks are appended to a {@link Journal} next to the save
+ * location, and the whole list is only rewritten (compacted into a fresh snapshot) once the journal grows past
+ * {@value #COMPACTION_THRESHOLD} entries.
+ * <p>
+ * Tasks are stored in the binary format of {@link TaskCodec}. Files written with Java serialization by earlier versions
+ * are still read, and are rewritten in the binary format as soon as they are loaded. Snapshots are loaded as a
+ * {@link MappedTaskList}, so tasks are only decoded once they are used.
+ * <p>
+ * Files are written by a background thread, which waits up to {@link #setMaxDelay(long) the max delay} after a change
+ * so that a burst of changes is written at once: only the latest snapshot, followed by the journal entries recorded
+ * after it. Snapshots are also encoded by that thread, from a copy of the tasks that shares every task with them, so
+ * saving the whole list only takes as long as copying the references to its tasks. Snapshots are written to a temporary file which then replaces the old one, so a crash never leaves a
+ * partially written snapshot behind. {@link #flush()} waits until every change has been written.
  *
  * @see Task
  * @see TaskList
  */
 public class Storage {
+    /**
+     * The number of journal entries after which the journal is compacted into a new snapshot.
+     */
+    public static final int COMPACTION_THRESHOLD = 1024;
+    /**
+     * The default time, in milliseconds, that a change may wait before it is written.
+     */
+    public static final long DEFAULT_MAX_DELAY = 100;
+    private static final String JOURNAL_SUFFIX = ".journal";
+    private static final String TEMP_SUFFIX = ".tmp";
+    private static final String INDEX_SUFFIX = ".index";
+    private static final int INDEX_MAGIC = 0x49445833;
+    private static final String HISTORY_SUFFIX = ".history";
+    private static final int HISTORY_MAGIC = 0x48495332;
+
+    private final ScheduledThreadPoolExecutor writer = new ScheduledThreadPoolExecutor(1, runnable -> {
+        Thread thread = new Thread(runnable, "storage-writer");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final Object ioLock = new Object();
     private String fileName = "data.txt";
+    private Journal journal = new Journal(fileName + JOURNAL_SUFFIX);
+    private boolean isJournaled = true;
+    private long maxDelay = DEFAULT_MAX_DELAY;
+    /**
+     * The generation of the latest snapshot, whether it has been written or not.
+     */
+    private long generation;
+    private List<Task> pendingSnapshot;
+    private boolean isWriteScheduled;
+
+    /**
+     * Creates a new Storage, whose writer thread only lives while there are changes to write.
+     */
+    public Storage() {
+        writer.setKeepAliveTime(1, TimeUnit.SECONDS);
+        writer.allowCoreThreadTimeOut(true);
+    }
 
     /**
      * Saves the given tasks to the last accessed location.
@@ -26,14 +90,30 @@ public class Storage {
      * @param tasks the tasks to be saved
      */
     public void save(List<Task> tasks) {
-        try {
-            FileOutputStream fos = new FileOutputStream(fileName);
-            ObjectOutputStream oos = new ObjectOutputStream(fos);
-            oos.writeObject(tasks);
-            oos.close();
-        } catch (IOException e) {
-            System.out.println("\t[ERROR] While saving, the following error occurred: \n\t" + e);
+        List<Task> snapshot = Storage.freeze(tasks);
+        synchronized (this) {
+            // also unique across files and sessions, so that stale journals and indexes are never mistaken as current
+            generation = Math.max(generation + 1, System.currentTimeMillis());
+            pendingSnapshot = snapshot;
+            journal.reset();
         }
+        this.schedule();
+    }
+
+    /**
+     * Returns a copy of the tasks that later changes to them do not affect, to be encoded by the writer thread.
+     * Tasks are replaced rather than changed, so the copy shares them, and a {@link MappedTaskList} is copied without
+     * decoding any task.
+     */
+    private static List<Task> freeze(List<Task> tasks) {
+        if (tasks instanceof PersistentVector) {
+            return tasks;
+        } else if (tasks instanceof MappedTaskList) {
+            return ((MappedTaskList) tasks).copy();
+        } else if (tasks instanceof ColumnarTaskList) {
+            return ((ColumnarTaskList) tasks).copy();
+        }
+        return new ArrayList<>(tasks);
     }
 
     /**
@@ -43,25 +123,316 @@ public class Storage {
      * @param fileName the name of the file to be used to store tasks.
      */
     public void save(List<Task> tasks, String fileName) {
-        this.fileName = fileName;
+        this.setFileName(fileName);
         this.save(tasks);
     }
 
     /**
-     * Loads the tasks from the last accessed location.
+     * Saves the addition of a task to the end of the list.
+     *
+     * @param tasks the tasks, after the addition.
+     * @param task  the task that was added.
+     */
+    public void saveAdd(List<Task> tasks, Task task) {
+        if (!isJournaled) {
+            this.save(tasks);
+            return;
+        }
+        try {
+            journal.add(task);
+        } catch (IOException e) {
+            System.out.println("\t[ERROR] While saving, the following error occurred: \n\t" + e);
+        }
+        this.commit(tasks);
+    }
+
+    /**
+     * Saves the change in status of the tasks at the given indexes.
+     *
+     * @param tasks   the tasks, after the change.
+     * @param indexes the indexes of the (un)marked tasks.
+     */
+    public void saveMark(List<Task> tasks, List<Integer> indexes) {
+        if (!isJournaled) {
+            this.save(tasks);
+            return;
+        }
+        try {
+            for (int index : indexes) {
+                journal.mark(index, tasks.get(index).isDone());
+            }
+        } catch (IOException e) {
+            System.out.println("\t[ERROR] While saving, the following error occurred: \n\t" + e);
+        }
+        this.commit(tasks);
+    }
+
+    /**
+     * Saves the deletion of the tasks at the given indexes.
+     *
+     * @param tasks   the tasks, after the deletion.
+     * @param indexes the indexes of the deleted tasks, in the order that they were removed.
+     */
+    public void saveDelete(List<Task> tasks, List<Integer> indexes) {
+        if (!isJournaled) {
+            this.save(tasks);
+            return;
+        }
+        try {
+            journal.delete(indexes);
+        } catch (IOException e) {
+            System.out.println("\t[ERROR] While saving, the following error occurred: \n\t" + e);
+        }
+        this.commit(tasks);
+    }
+
+    private void commit(List<Task> tasks) {
+        if (journal.size() >= COMPACTION_THRESHOLD) {
+            this.save(tasks);
+        } else {
+            this.schedule();
+        }
+    }
+
+    private void schedule() {
+        if (maxDelay <= 0) {
+            this.write();
+            return;
+        }
+        synchronized (this) {
+            if (isWriteScheduled) {
+                return;
+            }
+            isWriteScheduled = true;
+        }
+        writer.schedule(this::write, maxDelay, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Encodes and writes the pending snapshot (if any), then writes the journal entries recorded after it.
+     */
+    private void write() {
+        synchronized (ioLock) {
+            List<Task> snapshot;
+            byte[] entries;
+            long generation;
+            Journal journal;
+            String fileName;
+            synchronized (this) {
+                isWriteScheduled = false;
+                snapshot = this.pendingSnapshot;
+                this.pendingSnapshot = null;
+                entries = this.journal.drain();
+                generation = this.generation;
+                journal = this.journal;
+                fileName = this.fileName;
+            }
+            try {
+                byte[] encoded = null;
+                if (snapshot != null) {
+                    long start = System.nanoTime();
+                    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+                    TaskCodec.writeAll(bytes, snapshot, generation);
+                    encoded = bytes.toByteArray();
+                    if (Metrics.isEnabled()) {
+                        Metrics.record("storage encode", start, encoded.length);
+                    }
+                }
+                long start = System.nanoTime();
+                if (encoded != null) {
+                    writeAtomically(encoded, fileName);
+                    journal.truncate(generation);
+                }
+                journal.append(entries, generation);
+                if (Metrics.isEnabled()) {
+                    Metrics.record("storage write", start, (encoded == null ? 0 : encoded.length) + entries.length);
+                }
+            } catch (IOException e) {
+                System.out.println("\t[ERROR] While saving, the following error occurred: \n\t" + e);
+            }
+        }
+    }
+
+    private static void writeAtomically(byte[] bytes, String fileName) throws IOException {
+        Path path = Paths.get(fileName);
+        Path temp = Paths.get(fileName + TEMP_SUFFIX);
+        try (FileOutputStream fos = new FileOutputStream(temp.toFile())) {
+            fos.write(bytes);
+            fos.getFD().sync();
+        }
+        // replaces rather than overwrites the file, which may still be mapped by a MappedTaskList
+        try {
+            Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    /**
+     * Waits until every change saved so far has been written.
+     */
+    public void flush() {
+        try {
+            writer.submit(this::write).get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            System.out.println("\t[ERROR] While saving, the following error occurred: \n\t" + e.getCause());
+        }
+    }
+
+    /**
+     * Loads the tasks from the last accessed location, including any changes recorded in its journal.
      *
      * @return the tasks stored in the last accessed location
      * @throws IOException            if the file cannot be found or created.
      * @throws ClassNotFoundException if the file cannot be deserialized.
      */
     public List<Task> load() throws IOException, ClassNotFoundException, ClassCastException {
-        FileInputStream fin = new FileInputStream(fileName);
-        ObjectInputStream ois = new ObjectInputStream(fin);
-        @SuppressWarnings("unchecked") List<Task> tasks = (ArrayList<Task>) ois.readObject();
-        fin.close();
+        this.flush();
+        boolean isLegacy;
+        long generation = 0;
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(fileName)))) {
+            in.mark(Integer.BYTES);
+            isLegacy = in.readInt() != TaskCodec.MAGIC;
+            in.reset();
+            if (!isLegacy) {
+                generation = TaskCodec.readGeneration(in);
+            }
+        }
+        // a snapshot of the first version is read whole, and saved again in the current version
+        boolean isVersion1 = generation == TaskCodec.NO_GENERATION;
+        List<Task> tasks;
+        if (isLegacy) {
+            tasks = loadLegacy(fileName);
+        } else if (isVersion1) {
+            try (FileInputStream in = new FileInputStream(fileName)) {
+                tasks = TaskCodec.readAll(in);
+            }
+        } else {
+            tasks = MappedTaskList.open(Paths.get(fileName));
+        }
+        synchronized (ioLock) {
+            synchronized (this) {
+                this.generation = isVersion1 ? 0 : generation;
+            }
+            if (isVersion1) {
+                journal.replayVersion1(tasks);
+            } else {
+                journal.replay(tasks, generation);
+            }
+        }
+        if (isLegacy || isVersion1) {
+            this.save(tasks);
+        }
         return tasks;
     }
 
+    /**
+     * Saves a search index of the tasks next to the last accessed location.
+     * The index is only valid for the tasks as they were last saved, so this flushes any pending changes first.
+     *
+     * @param index the index to be saved.
+     * @param keys  the keys of the indexed tasks.
+     */
+    public void saveIndex(TrigramIndex index, TaskKeys keys) {
+        this.flush();
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            synchronized (this) {
+                out.writeInt(INDEX_MAGIC);
+                out.writeLong(generation);
+                out.writeInt(journal.size());
+            }
+            index.writeTo(out, keys);
+            synchronized (ioLock) {
+                writeAtomically(bytes.toByteArray(), fileName + INDEX_SUFFIX);
+            }
+        } catch (IOException e) {
+            System.out.println("\t[ERROR] While saving, the following error occurred: \n\t" + e);
+        }
+    }
+
+    /**
+     * Loads the search index saved next to the last accessed location, if it is an index of the tasks as they were
+     * last saved or loaded.
+     *
+     * @return the index, or null if there is no such index.
+     */
+    public TrigramIndex loadIndex() {
+        try (DataInputStream in = new DataInputStream(
+                new BufferedInputStream(new FileInputStream(fileName + INDEX_SUFFIX)))) {
+            boolean isCurrent;
+            synchronized (this) {
+                isCurrent = in.readInt() == INDEX_MAGIC
+                        && in.readLong() == generation
+                        && in.readInt() == journal.size()
+                        && pendingSnapshot == null;
+            }
+            return isCurrent ? TrigramIndex.readFrom(in) : null;
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Saves the undo history of the tasks next to the last accessed location.
+     * Like an index, the history is only valid for the tasks as they were last saved, so this flushes any pending
+     * changes first.
+     *
+     * @param history the history to be saved.
+     * @param current the current tasks.
+     */
+    public void saveHistory(History history, PersistentVector<Task> current) {
+        this.flush();
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            synchronized (this) {
+                out.writeInt(HISTORY_MAGIC);
+                out.writeLong(generation);
+                out.writeInt(journal.size());
+            }
+            history.writeTo(out, current);
+            synchronized (ioLock) {
+                writeAtomically(bytes.toByteArray(), fileName + HISTORY_SUFFIX);
+            }
+        } catch (IOException e) {
+            System.out.println("\t[ERROR] While saving, the following error occurred: \n\t" + e);
+        }
+    }
+
+    /**
+     * Loads the undo history saved next to the last accessed location, if it is the history of the tasks as they
+     * were last saved or loaded.
+     *
+     * @param current supplies the tasks as they were loaded, which are only read if there is a history.
+     * @param limit   the number of changes that can be undone.
+     * @return the history, or null if there is no such history.
+     */
+    public History loadHistory(Supplier<PersistentVector<Task>> current, int limit) {
+        try (DataInputStream in = new DataInputStream(
+                new BufferedInputStream(new FileInputStream(fileName + HISTORY_SUFFIX)))) {
+            boolean isCurrent;
+            synchronized (this) {
+                isCurrent = in.readInt() == HISTORY_MAGIC
+                        && in.readLong() == generation
+                        && in.readInt() == journal.size()
+                        && pendingSnapshot == null;
+            }
+            return isCurrent ? History.readFrom(in, current.get(), limit) : null;
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    private static List<Task> loadLegacy(String fileName)
+            throws IOException, ClassNotFoundException, ClassCastException {
+        try (ObjectInputStream ois = new ObjectInputStream(new BufferedInputStream(new FileInputStream(fileName)))) {
+            @SuppressWarnings("unchecked") List<Task> tasks = (ArrayList<Task>) ois.readObject();
+            return tasks;
+        }
+    }
+
     /**
      * Loads the tasks from the given file.
      *
@@ -71,7 +442,36 @@ public class Storage {
      * @throws ClassNotFoundException if the file cannot be deserialized.
      */
     public List<Task> load(String fileName) throws IOException, ClassNotFoundException, ClassCastException {
-        this.fileName = fileName;
+        this.setFileName(fileName);
         return this.load();
     }
+
+    /**
+     * Sets whether changes to single tasks are journaled, or saved by rewriting the whole list.
+     *
+     * @param isJournaled true to journal changes.
+     */
+    public void setJournaled(boolean isJournaled) {
+        this.isJournaled = isJournaled;
+    }
+
+    /**
+     * Sets the time that a change may wait before it is written, so that it can be written together with later ones.
+     *
+     * @param maxDelay the delay in milliseconds, or 0 to write every change immediately on the calling thread.
+     */
+    public void setMaxDelay(long maxDelay) {
+        this.flush();
+        this.maxDelay = maxDelay;
+    }
+
+    private void setFileName(String fileName) {
+        if (!fileName.equals(this.fileName)) {
+            this.flush();
+            synchronized (this) {
+                this.fileName = fileName;
+                this.journal = new Journal(fileName + JOURNAL_SUFFIX);
+            }
+        }
+    }
 }
@@ -0,0 +1,252 @@
+package duke.util;
+
+import duke.task.Deadline;
+import duke.task.Event;
+import duke.task.Task;
+import duke.task.ToDo;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInput;
+import java.io.DataInputStream;
+import java.io.DataOutput;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Compact binary encoding of tasks, used by {@link Storage} for snapshots and {@link Journal} entries.
+ * <p>
+ * A snapshot is a header ({@link #MAGIC}, {@link #VERSION}, generation, task count) followed by one record per task.
+ * The generation increases with every snapshot written, and ties a {@link Journal} to the snapshot it applies to;
+ * snapshots of {@link #VERSION_1}, written before there were generations, are read as having none.
+ * A record is a type tag byte, a done flag byte, the length-prefixed UTF-8 description and, depending on the type,
+ * the dates of the task as epoch-day ints.
+ *
+ * @see Task
+ */
+public class TaskCodec {
+    /**
+     * The first four bytes of every snapshot ({@code "DUKE"}).
+     */
+    public static final int MAGIC = 0x44554B45;
+    /**
+     * The current version of the snapshot format.
+     */
+    public static final byte VERSION = 2;
+    /**
+     * The version of snapshots written before the header had a generation, which can still be read (but not mapped).
+     */
+    public static final byte VERSION_1 = 1;
+    /**
+     * The generation returned for a snapshot of {@link #VERSION_1}, which has none.
+     */
+    public static final long NO_GENERATION = -1;
+    /**
+     * The size of the snapshot header, in bytes.
+     */
+    public static final int HEADER_SIZE = Integer.BYTES + Byte.BYTES + Long.BYTES + Integer.BYTES;
+
+    private static final byte TODO = 'T';
+    private static final byte DEADLINE = 'D';
+    private static final byte EVENT = 'E';
+    private static final int RECORD_HEADER_SIZE = Byte.BYTES + Byte.BYTES + Integer.BYTES;
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    /**
+     * Writes a single task record.
+     *
+     * @param out  the output to write to.
+     * @param task the task to be written.
+     * @throws IOException if the output cannot be written to.
+     */
+    public static void write(DataOutput out, Task task) throws IOException {
+        if (task instanceof Deadline) {
+            out.writeByte(DEADLINE);
+        } else if (task instanceof Event) {
+            out.writeByte(EVENT);
+        } else {
+            out.writeByte(TODO);
+        }
+        out.writeBoolean(task.isDone());
+        byte[] desc = task.getDesc().getBytes(StandardCharsets.UTF_8);
+        out.writeInt(desc.length);
+        out.write(desc);
+        if (task instanceof Deadline) {
+            out.writeInt((int) ((Deadline) task).getBy().toEpochDay());
+        } else if (task instanceof Event) {
+            out.writeInt((int) ((Event) task).getFrom().toEpochDay());
+            out.writeInt((int) ((Event) task).getTo().toEpochDay());
+        }
+    }
+
+    /**
+     * Reads a single task record.
+     *
+     * @param in the input to read from.
+     * @return the task that was read.
+     * @throws IOException if the input cannot be read or is not a task record.
+     */
+    public static Task read(DataInput in) throws IOException {
+        byte type = in.readByte();
+        boolean isDone = in.readBoolean();
+        byte[] bytes = new byte[in.readInt()];
+        in.readFully(bytes);
+        String desc = new String(bytes, StandardCharsets.UTF_8);
+        Task task;
+        if (type == TODO) {
+            task = new ToDo(desc);
+        } else if (type == DEADLINE) {
+            task = new Deadline(desc, LocalDate.ofEpochDay(in.readInt()));
+        } else if (type == EVENT) {
+            LocalDate from = LocalDate.ofEpochDay(in.readInt());
+            task = new Event(desc, from, LocalDate.ofEpochDay(in.readInt()));
+        } else {
+            throw new IOException("Unknown task type: " + type);
+        }
+        task.mark(isDone);
+        return task;
+    }
+
+    /**
+     * Reads a single task record at the given position of a buffer, without changing the position of the buffer.
+     *
+     * @param buffer the buffer to read from.
+     * @param offset the position of the record in the buffer.
+     * @return the task that was read.
+     * @throws IOException if the record is not a task record.
+     */
+    public static Task read(ByteBuffer buffer, int offset) throws IOException {
+        byte type = buffer.get(offset);
+        boolean isDone = buffer.get(offset + 1) != 0;
+        byte[] bytes = new byte[buffer.getInt(offset + 2)];
+        ByteBuffer view = buffer.duplicate();
+        view.position(offset + RECORD_HEADER_SIZE);
+        view.get(bytes);
+        String desc = new String(bytes, StandardCharsets.UTF_8);
+        int dates = offset + RECORD_HEADER_SIZE + bytes.length;
+        Task task;
+        if (type == TODO) {
+            task = new ToDo(desc);
+        } else if (type == DEADLINE) {
+            task = new Deadline(desc, LocalDate.ofEpochDay(buffer.getInt(dates)));
+        } else if (type == EVENT) {
+            task = new Event(desc,
+                    LocalDate.ofEpochDay(buffer.getInt(dates)),
+                    LocalDate.ofEpochDay(buffer.getInt(dates + Integer.BYTES)));
+        } else {
+            throw new IOException("Unknown task type: " + type);
+        }
+        task.mark(isDone);
+        return task;
+    }
+
+    /**
+     * Returns the size of the task record at the given position of a buffer, without decoding it.
+     *
+     * @param buffer the buffer to read from.
+     * @param offset the position of the record in the buffer.
+     * @return the size of the record, in bytes.
+     */
+    public static int sizeOf(ByteBuffer buffer, int offset) {
+        byte type = buffer.get(offset);
+        int size = RECORD_HEADER_SIZE + buffer.getInt(offset + 2);
+        if (type == DEADLINE) {
+            size += Integer.BYTES;
+        } else if (type == EVENT) {
+            size += 2 * Integer.BYTES;
+        }
+        return size;
+    }
+
+    /**
+     * Reads the header of a snapshot at the start of a buffer.
+     *
+     * @param buffer the buffer to read from.
+     * @return the number of tasks in the snapshot.
+     * @throws IOException if the buffer is not a snapshot of a supported version.
+     */
+    public static int readHeader(ByteBuffer buffer) throws IOException {
+        if (buffer.limit() < HEADER_SIZE || buffer.getInt(0) != MAGIC) {
+            throw new IOException("Not a task snapshot.");
+        }
+        byte version = buffer.get(Integer.BYTES);
+        if (version != VERSION) {
+            throw new IOException("Unsupported snapshot version: " + version);
+        }
+        return buffer.getInt(HEADER_SIZE - Integer.BYTES);
+    }
+
+    /**
+     * Reads the generation of a snapshot from the start of its header, leaving the input at the task count.
+     *
+     * @param in the input to read from.
+     * @return the generation of the snapshot, or {@link #NO_GENERATION} if it is a snapshot of {@link #VERSION_1}.
+     * @throws IOException if the input is not a snapshot of a supported version.
+     */
+    public static long readGeneration(DataInput in) throws IOException {
+        if (in.readInt() != MAGIC) {
+            throw new IOException("Not a task snapshot.");
+        }
+        byte version = in.readByte();
+        if (version == VERSION_1) {
+            return NO_GENERATION;
+        }
+        if (version != VERSION) {
+            throw new IOException("Unsupported snapshot version: " + version);
+        }
+        return in.readLong();
+    }
+
+    /**
+     * Writes a snapshot of the given tasks.
+     * Tasks of a {@link MappedTaskList} that have not been decoded are copied over without decoding them.
+     *
+     * @param os         the stream to write to.
+     * @param tasks      the tasks to be written.
+     * @param generation the generation of the snapshot.
+     * @throws IOException if the stream cannot be written to.
+     */
+    public static void writeAll(OutputStream os, List<Task> tasks, long generation) throws IOException {
+        DataOutputStream out = new DataOutputStream(new BufferedOutputStream(os, BUFFER_SIZE));
+        out.writeInt(MAGIC);
+        out.writeByte(VERSION);
+        out.writeLong(generation);
+        out.writeInt(tasks.size());
+        if (tasks instanceof MappedTaskList) {
+            MappedTaskList mapped = (MappedTaskList) tasks;
+            for (int i = 0; i < mapped.size(); i++) {
+                mapped.write(out, i);
+            }
+        } else {
+            for (Task task : tasks) {
+                write(out, task);
+            }
+        }
+        out.flush();
+    }
+
+    /**
+     * Reads a snapshot of tasks.
+     *
+     * @param is the stream to read from.
+     * @return the tasks in the snapshot.
+     * @throws IOException if the stream cannot be read or is not a snapshot of a supported version.
+     */
+    public static List<Task> readAll(InputStream is) throws IOException {
+        DataInputStream in = new DataInputStream(new BufferedInputStream(is, BUFFER_SIZE));
+        readGeneration(in);
+        int count = in.readInt();
+        List<Task> tasks = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            tasks.add(read(in));
+        }
+        return tasks;
+    }
+}
@@ -0,0 +1,112 @@
+package duke.util;
+
+import java.util.Arrays;
+
+/**
+ * Assigns every task in a {@link TaskList} a key that, unlike its index, does not change when tasks before it are
+ * deleted. Indexes over the tasks refer to tasks by key, so that they need not be updated on every deletion.
+ * <p>
+ * Tasks are only ever added to the end of the list, so keys increase with the index of the task, and the index of a
+ * key can be found by binary search. Until a task is first deleted, the key of each task is simply its index.
+ */
+public class TaskKeys {
+    private int[] keys;
+    private int size;
+    private int nextKey;
+
+    /**
+     * Creates keys for the given number of existing tasks.
+     *
+     * @param size the number of tasks.
+     */
+    public TaskKeys(int size) {
+        this.size = size;
+        this.nextKey = size;
+    }
+
+    /**
+     * Assigns a key to a task added to the end of the list.
+     *
+     * @return the key of the new task.
+     */
+    public int add() {
+        if (keys != null) {
+            if (size == keys.length) {
+                keys = Arrays.copyOf(keys, Math.max(16, size + (size >> 1)));
+            }
+            keys[size] = nextKey;
+        }
+        size++;
+        return nextKey++;
+    }
+
+    /**
+     * Removes the keys of the tasks deleted at once, in a single pass.
+     *
+     * @param selection the indexes of the deleted tasks.
+     */
+    public void remove(Selection selection) {
+        int first = selection.next(0);
+        if (first < 0 || first >= size) {
+            return;
+        }
+        if (keys == null) {
+            keys = new int[Math.max(16, size)];
+            Arrays.setAll(keys, i -> i);
+        }
+        int kept = first;
+        for (int i = first; i < size; i++) {
+            if (!selection.contains(i)) {
+                keys[kept++] = keys[i];
+            }
+        }
+        size = kept;
+    }
+
+    /**
+     * Returns the key of the task at the given index.
+     *
+     * @param index the index of the task.
+     * @return the key of the task.
+     */
+    public int keyOf(int index) {
+        return keys == null ? index : keys[index];
+    }
+
+    /**
+     * Returns the index of the task with the given key.
+     *
+     * @param key the key of the task.
+     * @return the index of the task, or -1 if the task has been deleted.
+     */
+    public int indexOf(int key) {
+        if (keys == null) {
+            return key < size ? key : -1;
+        }
+        int index = Arrays.binarySearch(keys, 0, size, key);
+        return index < 0 ? -1 : index;
+    }
+
+    /**
+     * Returns a table of the index of every key ever assigned, for when many keys have to be looked up at once.
+     *
+     * @return the index of each key, or -1 if the task with that key has been deleted.
+     */
+    public int[] indexTable() {
+        int[] indexes = new int[nextKey];
+        Arrays.fill(indexes, -1);
+        for (int i = 0; i < size; i++) {
+            indexes[keyOf(i)] = i;
+        }
+        return indexes;
+    }
+
+    /**
+     * Returns the number of tasks.
+     *
+     * @return the number of tasks.
+     */
+    public int size() {
+        return size;
+    }
+}
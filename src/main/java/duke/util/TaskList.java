@@ -8,26 +8,92 @@ import duke.task.ToDo;
 
 import java.io.FileNotFoundException;
 import java.io.IOException;
+import java.time.LocalDate;
 import java.util.ArrayList;
-import java.util.Collections;
-import java.util.LinkedList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Comparator;
 import java.util.List;
 import java.util.Objects;
 import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
 import java.util.function.IntConsumer;
 import java.util.stream.Collectors;
 import java.util.stream.IntStream;
 
 /**
  * Utility used by Duke to manage tasks.
+ * <p>
+ * Changes to the tasks are made one at a time, and are passed to the {@link Storage} in the same order, but without
+ * holding up other changes or queries while the storage encodes them. In {@linkplain #setConcurrent(boolean) concurrent
+ * mode}, an immutable snapshot of the tasks is also kept, which listing and (short) searches read without waiting for
+ * changes at all.
  *
  * @see Duke
  * @see Task
  * @see Storage
  */
 public class TaskList {
-    private final List<Task> tasks;
+    /**
+     * The number of tasks listed in the output of a change to several tasks, beyond which they are only counted.
+     */
+    private static final int MAX_LINES_PER_CHANGE = 20;
+
+    private List<Task> tasks;
     private final Storage storage = new Storage();
+    private TaskKeys keys;
+    /**
+     * The search index over the task descriptions, loaded or built on the first search.
+     */
+    private TrigramIndex trigramIndex;
+    /**
+     * The index over the dates of the tasks, built on the first date query.
+     */
+    private IntervalIndex intervalIndex;
+    /**
+     * The queue of undone tasks by date, built on the first query for the next tasks.
+     */
+    private DueDateHeap dueDateHeap;
+    /**
+     * The bitmap of the done tasks by index, built on the first query by status.
+     */
+    private BitSet doneBitmap;
+    private boolean isIndexChanged;
+    private boolean isModified;
+    /**
+     * Whether changes are only saved by {@link #save()}, instead of as they are made.
+     */
+    private boolean isSaveDeferred;
+    private boolean hasUnsavedChanges;
+    /**
+     * Held while the tasks, their keys or the indexes over them are changed, and while an index is queried.
+     */
+    private final ReentrantLock lock = new ReentrantLock();
+    /**
+     * Saves of changes, in the order that the changes were made, which have yet to be passed to the storage.
+     */
+    private final Queue<Runnable> pendingSaves = new ConcurrentLinkedQueue<>();
+    /**
+     * Held while the pending saves are passed to the storage, so that they are passed in order.
+     */
+    private final ReentrantLock saveLock = new ReentrantLock();
+    /**
+     * An immutable copy of the tasks, kept in concurrent mode, or from the first change on while there is a history.
+     */
+    private volatile PersistentVector<Task> snapshot;
+    private boolean isConcurrent;
+    private History history = new History(History.DEFAULT_LIMIT);
+    private boolean isHistoryChanged;
+    /**
+     * The number of changes made to the tasks, which tells whether the {@link #rendered} lines are still current.
+     */
+    private int modCount;
+    /**
+     * The lines of the tasks as last listed, each rendered the first time it is listed.
+     */
+    private volatile RenderedLines rendered;
 
     /**
      * Constructs a new TaskList with the given tasks.
@@ -36,6 +102,7 @@ public class TaskList {
      */
     public TaskList(List<Task> tasks) {
         this.tasks = tasks;
+        this.keys = new TaskKeys(tasks.size());
         storage.save(tasks);
     }
 
@@ -54,6 +121,8 @@ public class TaskList {
             storage.save(tasks, fileName);
         }
         this.tasks = tasks;
+        this.keys = new TaskKeys(tasks.size());
+        this.loadHistory();
     }
 
     /**
@@ -71,6 +140,15 @@ public class TaskList {
             storage.save(tasks);
         }
         this.tasks = tasks;
+        this.keys = new TaskKeys(tasks.size());
+        this.loadHistory();
+    }
+
+    private void loadHistory() {
+        History loaded = storage.loadHistory(this::current, this.history.getLimit());
+        if (loaded != null) {
+            this.history = loaded;
+        }
     }
 
     /**
@@ -80,15 +158,53 @@ public class TaskList {
      * @see     Ui#print(String)
      */
     public Queue<String> stringify() {
-        if (this.tasks.size() == 0) {
-            return new LinkedList<>(Collections.singletonList("No tasks found."));
+        OutputBuffer outputs = new OutputBuffer();
+        this.stringify(outputs::add, Page.ALL);
+        return outputs;
+    }
+
+    /**
+     * Writes a string representation of a page of the tasks in the list, one line at a time, without collecting the
+     * lines first.
+     *
+     * @param out  the consumer of the lines.
+     * @param page the page of the tasks to be written.
+     * @see Stateful#getSink()
+     */
+    public void stringify(Consumer<String> out, Page page) {
+        List<Task> tasks = this.view();
+        int size = tasks.size();
+        if (size == 0) {
+            out.accept("No tasks found.");
+            return;
+        }
+        int from = page.from(size);
+        int to = page.to(size);
+        out.accept("tasks" + page.describe(size) + ": ");
+        String[] lines = this.renderedLines(tasks, to);
+        for (int i = from; i < to; i++) {
+            String line = lines[i];
+            if (line == null) {
+                line = "\t" + addOrdinal(i, tasks.get(i));
+                lines[i] = line;
+            }
+            out.accept(line);
         }
-        Queue<String> header = new LinkedList<>(Collections.singletonList("tasks: "));
-        Queue<String> outputs = IntStream.range(0, this.tasks.size())
-                .mapToObj(i -> "\t" + addOrdinal(i, this.tasks.get(i)))
-                .collect(Collectors.toCollection(LinkedList::new));
-        header.addAll(outputs);
-        return header;
+    }
+
+    /**
+     * Returns the lines rendered for the given tasks, if they have not changed since, or else an empty array for them,
+     * with room for at least the lines before the given index.
+     */
+    private String[] renderedLines(List<Task> tasks, int end) {
+        RenderedLines rendered = this.rendered;
+        int modCount = this.modCount;
+        // a snapshot never changes, but the tasks themselves are only the same if no change has been made since
+        if (rendered == null || rendered.tasks != tasks || rendered.modCount != modCount) {
+            rendered = new RenderedLines(tasks, modCount);
+            this.rendered = rendered;
+        }
+        return rendered.linesUntil(end);
     }
 
     /**
@@ -98,8 +214,40 @@ public class TaskList {
      * @return a string representation of the task that was added.
      */
     public String add(Task task) {
-        this.tasks.add(task);
-        this.save();
+        lock.lock();
+        try {
+            PersistentVector<Task> before = this.versionBeforeChange();
+            this.tasks.add(task);
+            int key = this.keys.add();
+            if (this.trigramIndex != null) {
+                this.trigramIndex.add(key, task.getDesc());
+                this.isIndexChanged = true;
+            }
+            if (this.intervalIndex != null) {
+                this.intervalIndex.add(key, task);
+            }
+            if (this.dueDateHeap != null) {
+                this.dueDateHeap.add(key, task);
+            }
+            if (this.doneBitmap != null) {
+                this.doneBitmap.set(this.tasks.size() - 1, task.isDone());
+            }
+            if (this.snapshot != null) {
+                this.snapshot = this.snapshot.plus(task);
+            }
+            this.record("add " + task, before);
+            this.isModified = true;
+            this.modCount++;
+            if (this.isSaveDeferred) {
+                this.hasUnsavedChanges = true;
+            } else {
+                List<Task> saved = this.view();
+                pendingSaves.add(() -> storage.saveAdd(saved, task));
+            }
+        } finally {
+            lock.unlock();
+        }
+        this.runPendingSaves();
         return "added: " + task;
     }
 
@@ -130,34 +278,66 @@ public class TaskList {
      */
     public Queue<String> toggleMark(Queue<String> indStr, Boolean isDone) {
         if (indStr == null || indStr.size() == 0) {
-            return new LinkedList<>();
+            return new OutputBuffer();
         }
-        List<Integer> indexes = new ArrayList<>();
-        IntConsumer mark = ind -> {
-            if (isDone != null) {
-                this.tasks.get(ind).mark(isDone);
-            } else {
-                this.tasks.get(ind).mark();
-            }
-            indexes.add(ind);
-        };
-        this.consume(indStr, mark);
-        this.save();
-        if (indexes.size() == 0) {
+        lock.lock();
+        try {
+            return this.toggleMarkLocked(indStr, isDone);
+        } finally {
+            lock.unlock();
+            this.runPendingSaves();
+        }
+    }
+
+    private Queue<String> toggleMarkLocked(Queue<String> indStr, Boolean isDone) {
+        Selection selection = Selection.parse(indStr, this.tasks.size());
+        if (selection.isEmpty()) {
             throw new IllegalArgumentException("No tasks found.");
-        } else if (indexes.size() == 1) {
-            Task task = this.tasks.get(indexes.get(0));
-            return new LinkedList<>(Collections.singletonList(
-                    (task.isDone() ? "marked: " : "unmarked: ")
-                            + addOrdinal(indexes.get(0), task)
-            ));
+        }
+        PersistentVector<Task> before = this.versionBeforeChange();
+        selection.forEach(ind -> {
+            // replaced rather than changed, as the task may be in a snapshot
+            Task prev = this.tasks.get(ind);
+            Task task = prev.withDone(isDone != null ? isDone : !prev.isDone());
+            this.tasks.set(ind, task);
+            if (this.doneBitmap != null) {
+                this.doneBitmap.set(ind, task.isDone());
+            }
+            if (this.dueDateHeap != null) {
+                if (task.isDone()) {
+                    this.dueDateHeap.remove(this.keys.keyOf(ind));
+                } else {
+                    this.dueDateHeap.add(this.keys.keyOf(ind), task);
+                }
+            }
+        });
+        this.modCount++;
+        if (this.snapshot != null) {
+            // published once, so that no snapshot has only some of the tasks marked
+            PersistentVector<Task> snapshot = this.snapshot;
+            for (int i = selection.next(0); i >= 0; i = selection.next(i + 1)) {
+                snapshot = snapshot.with(i, this.tasks.get(i));
+            }
+            this.snapshot = snapshot;
+        }
+        int first = selection.next(0);
+        this.record(selection.count() == 1
+                ? "mark " + addOrdinal(first, this.tasks.get(first))
+                : "mark of " + selection.count() + " tasks", before);
+        if (this.isSaveDeferred) {
+            this.hasUnsavedChanges = true;
+        } else {
+            List<Task> saved = this.view();
+            List<Integer> indexes = IntStream.of(selection.toArray()).boxed().collect(Collectors.toList());
+            pendingSaves.add(() -> storage.saveMark(saved, indexes));
+        }
+        if (selection.count() == 1) {
+            Task task = this.tasks.get(first);
+            return OutputBuffer.of((task.isDone() ? "marked: " : "unmarked: ") + addOrdinal(first, task));
         } else {
-            Queue<String> header = new LinkedList<>(Collections.singletonList("marked: "));
-            Queue<String> outputs = indexes.stream()
-                    .map(i -> "\t" + addOrdinal(i, this.tasks.get(i)))
-                    .collect(Collectors.toCollection(LinkedList::new));
-            header.addAll(outputs);
-            return header;
+            OutputBuffer outputs = OutputBuffer.of("marked: ");
+            this.writeSelected(selection, outputs);
+            return outputs;
         }
     }
 
@@ -168,68 +348,704 @@ public class TaskList {
      * @return a string representation of the task(s) that were deleted.
      */
     public Queue<String> delete(Queue<String> indStr) {
-        List<Integer> indexes = new ArrayList<>();
-        IntConsumer delete = ind -> {
-            if (this.tasks.size() <= ind) {
-                throw new IllegalArgumentException("Task not found: " + ind);
-            }
-            indexes.add(ind);
-        };
-        this.consume(indStr, delete);
-        if (indexes.size() == 0) {
+        lock.lock();
+        try {
+            return this.deleteLocked(indStr);
+        } finally {
+            lock.unlock();
+            this.runPendingSaves();
+        }
+    }
+
+    private Queue<String> deleteLocked(Queue<String> indStr) {
+        Selection selection = Selection.parse(indStr, this.tasks.size());
+        if (selection.isEmpty()) {
             throw new IllegalArgumentException("No tasks found.");
-        } else if (indexes.size() == 1) {
-            Task rmTask = this.tasks.remove((int) indexes.get(0));
-            this.save();
-            return new LinkedList<>(Collections.singletonList(
-                    "deleted: " + addOrdinal(indexes.get(0), rmTask)
-            ));
+        }
+        PersistentVector<Task> before = this.versionBeforeChange();
+        OutputBuffer deleted;
+        String name;
+        if (selection.count() == 1) {
+            int index = selection.next(0);
+            name = "delete " + addOrdinal(index, this.tasks.get(index));
+            deleted = OutputBuffer.of("deleted: " + addOrdinal(index, this.tasks.get(index)));
         } else {
-            indexes.sort(Collections.reverseOrder());
-            List<String> outputs = new ArrayList<>();
-            for (int i : indexes) {
-                outputs.add("\t" + addOrdinal(i, this.tasks.remove(i)));
-            }
-            this.save();
-            Collections.reverse(outputs);
-            outputs.add(0, "deleted:");
-            return new LinkedList<>(outputs);
+            name = "delete of " + selection.count() + " tasks";
+            deleted = OutputBuffer.of("deleted:");
+            // written before the tasks are removed, as their indexes change
+            this.writeSelected(selection, deleted);
         }
+        this.removeAll(selection);
+        this.saveDelete(selection);
+        this.record(name, before);
+        return deleted;
     }
 
-    private void consume(Queue<String> arguments, IntConsumer consumer) {
-        try {
-            arguments.stream().mapToInt(Integer::parseInt).map(i -> --i).forEach(consumer);
-        } catch (NumberFormatException | IndexOutOfBoundsException e) {
-            throw new IllegalArgumentException("Invalid index.");
+    private void saveDelete(Selection selection) {
+        if (this.snapshot != null) {
+            this.snapshot = this.snapshot.without(selection.toArray());
+        }
+        if (this.isSaveDeferred) {
+            this.hasUnsavedChanges = true;
+        } else {
+            List<Task> saved = this.view();
+            List<Integer> indexes = selection.toDescendingList();
+            pendingSaves.add(() -> storage.saveDelete(saved, indexes));
+        }
+    }
+
+    /**
+     * Removes the selected tasks, and their keys, in a single pass over the tasks.
+     */
+    private void removeAll(Selection selection) {
+        if (this.intervalIndex != null || this.dueDateHeap != null) {
+            selection.forEach(index -> {
+                int key = this.keys.keyOf(index);
+                if (this.intervalIndex != null) {
+                    this.intervalIndex.remove(key, this.tasks.get(index));
+                }
+                if (this.dueDateHeap != null) {
+                    this.dueDateHeap.remove(key);
+                }
+            });
+        }
+        selection.removeFrom(this.tasks);
+        if (this.doneBitmap != null) {
+            selection.removeFrom(this.doneBitmap);
+        }
+        this.keys.remove(selection);
+        if (this.trigramIndex != null) {
+            this.trigramIndex.remove(this.keys, selection.count());
+            this.isIndexChanged = true;
+        }
+        this.isModified = true;
+        this.modCount++;
+    }
+
+    /**
+     * Adds a line for each of the first {@value #MAX_LINES_PER_CHANGE} selected tasks to the outputs, and then a
+     * count of the rest, so that a change to many tasks does not render all of them.
+     */
+    private void writeSelected(Selection selection, OutputBuffer outputs) {
+        int written = 0;
+        for (int i = selection.next(0); i >= 0 && written < MAX_LINES_PER_CHANGE; i = selection.next(i + 1)) {
+            outputs.add("\t" + addOrdinal(i, this.tasks.get(i)));
+            written++;
+        }
+        if (selection.count() > written) {
+            outputs.add("\t... and " + (selection.count() - written) + " more");
         }
     }
 
     /**
      * Performs a search for partial matches on task descriptions.
+     * Search terms of at least {@value TrigramIndex#GRAM_LENGTH} characters are looked up in a {@link TrigramIndex},
+     * so that only tasks containing every trigram of the term are checked.
      *
      * @param argument the search term.
      * @return a string representation of the tasks that matched the search term.
      */
     public Queue<String> find(String argument) {
+        OutputBuffer outputs = new OutputBuffer();
+        this.find(argument, outputs::add, Page.ALL);
+        return outputs;
+    }
+
+    /**
+     * Performs a search for partial matches on task descriptions, and writes a page of the matches one line at a
+     * time, without collecting the lines first.
+     *
+     * @param argument the search term.
+     * @param out      the consumer of the lines.
+     * @param page     the page of the matches to be written.
+     * @see #find(String)
+     */
+    public void find(String argument, Consumer<String> out, Page page) {
         String keyword = argument.toLowerCase();
-        List<Integer> matchIndexes = IntStream.range(0, this.tasks.size())
-                .parallel()
-                .filter(i -> this.tasks.get(i).getDesc().toLowerCase().contains(keyword))
-                .boxed().collect(Collectors.toList());
-        if (matchIndexes.size() < 1) {
-            return new LinkedList<>(Collections.singletonList("No matches found."));
+        if (keyword.length() < TrigramIndex.GRAM_LENGTH) {
+            List<Task> tasks = this.view();
+            IntStream indexes = IntStream.range(0, tasks.size());
+            if (!(tasks instanceof MappedTaskList)) {
+                // a mapped list decodes its tasks one at a time, so threads would only wait for each other
+                indexes = indexes.parallel();
+            }
+            List<Integer> matchIndexes = indexes
+                    .filter(i -> TaskList.descContains(tasks, i, keyword))
+                    .boxed().collect(Collectors.toList());
+            this.writeMatches(tasks, matchIndexes, out, page);
+            return;
+        }
+        List<Task> snapshot;
+        List<Integer> matchIndexes = new ArrayList<>();
+        lock.lock();
+        try {
+            for (int key : this.getTrigramIndex().candidates(keyword)) {
+                int index = this.keys.indexOf(key);
+                if (index >= 0 && TaskList.descContains(this.tasks, index, keyword)) {
+                    matchIndexes.add(index);
+                }
+            }
+            snapshot = this.snapshot;
+            if (snapshot == null) {
+                this.writeMatches(this.tasks, matchIndexes, out, page);
+                return;
+            }
+        } finally {
+            lock.unlock();
+        }
+        // written from the unchanging snapshot after unlocking, so that a slow consumer does not hold up changes
+        this.writeMatches(snapshot, matchIndexes, out, page);
+    }
+
+    /**
+     * Lists the tasks matching the given query, a page at a time, or explains how they would be found.
+     * <p>
+     * The candidates are read from whichever access path is expected to give the fewest of them: the
+     * {@link IntervalIndex} for {@code /before}, the {@link TrigramIndex} for a {@code /match} of at least
+     * {@value TrigramIndex#GRAM_LENGTH} characters, the bitmap of the done tasks for {@code /done}, or else every
+     * task. Every filter of the query is then checked on each candidate, so an index need only cover one of them.
+     *
+     * @param query       the query.
+     * @param isExplained true to write the plan of the query instead of the matching tasks.
+     * @param out         the consumer of the lines.
+     * @param page        the page of the matching tasks to be written.
+     */
+    public void query(Query query, boolean isExplained, Consumer<String> out, Page page) {
+        List<Task> snapshot;
+        List<Integer> matchIndexes;
+        lock.lock();
+        try {
+            AccessPath path = this.choosePath(query);
+            if (isExplained) {
+                List<String> filters = query.describeFilters();
+                out.accept("plan:");
+                out.accept("\taccess: " + path.name + " (at most " + path.estimate + " of " + this.tasks.size()
+                        + " tasks)");
+                out.accept("\tfilter: " + (filters.isEmpty() ? "none" : String.join(", ", filters)));
+                out.accept("\tsort: " + query.describeOrder());
+                return;
+            }
+            List<Integer> indexes = new ArrayList<>();
+            List<Task> matches = new ArrayList<>();
+            path.candidates.accept(index -> {
+                Task task = this.tasks.get(index);
+                if (query.test(task)) {
+                    indexes.add(index);
+                    matches.add(task);
+                }
+            });
+            Comparator<Task> order = query.getOrder();
+            if (order == null) {
+                matchIndexes = indexes;
+            } else {
+                // sorted by position among the matches, as the tasks are only fetched once; stable, so ties keep
+                // their order by index
+                matchIndexes = IntStream.range(0, matches.size()).boxed()
+                        .sorted(Comparator.comparing(matches::get, order))
+                        .map(indexes::get)
+                        .collect(Collectors.toList());
+            }
+            snapshot = this.snapshot;
+            if (snapshot == null) {
+                this.writeQueried(query, this.tasks, matchIndexes, out, page);
+                return;
+            }
+        } finally {
+            lock.unlock();
+        }
+        // written from the unchanging snapshot after unlocking, so that a slow consumer does not hold up changes
+        this.writeQueried(query, snapshot, matchIndexes, out, page);
+    }
+
+    /**
+     * Returns the access path expected to give the fewest candidates for the given query, building the indexes that
+     * cover its filters if they have not been built yet.
+     */
+    private AccessPath choosePath(Query query) {
+        int size = this.tasks.size();
+        AccessPath path = new AccessPath("full scan", size, action -> {
+            for (int i = 0; i < size; i++) {
+                action.accept(i);
+            }
+        });
+        if (query.getBefore() != null) {
+            IntervalIndex index = this.getIntervalIndex();
+            int day = (int) query.getBefore().toEpochDay();
+            path = path.orCheaper(new AccessPath("date index", index.countStartingBefore(day), action -> {
+                List<Integer> matchKeys = new ArrayList<>();
+                index.forEachEndingBefore(day, matchKeys::add);
+                this.toIndexes(matchKeys).forEach(action::accept);
+            }));
+        }
+        String match = query.getMatch();
+        if (match != null && match.length() >= TrigramIndex.GRAM_LENGTH) {
+            int[] candidateKeys = this.getTrigramIndex().candidates(match);
+            path = path.orCheaper(new AccessPath("trigram index", candidateKeys.length, action -> {
+                // keys increase with the index, so the indexes are in order
+                for (int key : candidateKeys) {
+                    int index = this.keys.indexOf(key);
+                    if (index >= 0) {
+                        action.accept(index);
+                    }
+                }
+            }));
+        }
+        if (query.getDone() != null) {
+            BitSet bitmap = this.getDoneBitmap();
+            boolean isDone = query.getDone();
+            int count = isDone ? bitmap.cardinality() : size - bitmap.cardinality();
+            path = path.orCheaper(new AccessPath("done bitmap", count, action -> {
+                for (int i = isDone ? bitmap.nextSetBit(0) : bitmap.nextClearBit(0); i >= 0 && i < size;
+                        i = isDone ? bitmap.nextSetBit(i + 1) : bitmap.nextClearBit(i + 1)) {
+                    action.accept(i);
+                }
+            }));
+        }
+        return path;
+    }
+
+    /**
+     * Lists the deadlines and events dated strictly before the given date, looked up in an {@link IntervalIndex}.
+     * An event is only listed if it ends before the date.
+     *
+     * @param date the date, in the {@code YYYY-MM-DD} format.
+     * @return a string representation of the tasks due before the date.
+     */
+    public Queue<String> dueBefore(String date) {
+        int day = (int) LocalDate.parse(Objects.requireNonNull(date)).toEpochDay();
+        lock.lock();
+        try {
+            List<Integer> matchKeys = new ArrayList<>();
+            this.getIntervalIndex().forEachEndingBefore(day, matchKeys::add);
+            return this.stringifyMatches(this.tasks, this.toIndexes(matchKeys));
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Lists the deadlines and events with dates between the given dates (inclusive), looked up in an
+     * {@link IntervalIndex}. An event is listed if any of its days are between the dates.
+     *
+     * @param from the first date, in the {@code YYYY-MM-DD} format, or null to list everything up to the last date.
+     * @param to   the last date, in the {@code YYYY-MM-DD} format, or null to list everything from the first date.
+     * @return a string representation of the tasks between the dates.
+     */
+    public Queue<String> between(String from, String to) {
+        int fromDay = from == null ? Integer.MIN_VALUE : (int) LocalDate.parse(from).toEpochDay();
+        int toDay = to == null ? Integer.MAX_VALUE : (int) LocalDate.parse(to).toEpochDay();
+        if (fromDay > toDay) {
+            throw new IllegalArgumentException("Start date is after end date.");
+        }
+        lock.lock();
+        try {
+            List<Integer> matchKeys = new ArrayList<>();
+            this.getIntervalIndex().forEachOverlapping(fromDay, toDay, matchKeys::add);
+            return this.stringifyMatches(this.tasks, this.toIndexes(matchKeys));
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Lists the undone deadlines and events that are due or start the soonest, looked up in a {@link DueDateHeap}
+     * without going through the rest of the tasks.
+     *
+     * @param count the number of tasks to list, or an empty string to list only the next task.
+     * @return a string representation of the next tasks, soonest first.
+     */
+    public Queue<String> next(String count) {
+        int n;
+        try {
+            n = count.isBlank() ? 1 : Integer.parseInt(count.strip());
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid number of tasks: " + count);
+        }
+        if (n < 1) {
+            throw new IllegalArgumentException("Invalid number of tasks: " + count);
+        }
+        lock.lock();
+        try {
+            List<Integer> nextIndexes = new ArrayList<>();
+            this.getDueDateHeap().forEachFirst(n, key -> nextIndexes.add(this.keys.indexOf(key)));
+            if (nextIndexes.isEmpty()) {
+                return OutputBuffer.of("No upcoming tasks.");
+            }
+            OutputBuffer outputs = OutputBuffer.of("upcoming tasks:");
+            for (int i : nextIndexes) {
+                outputs.add("\t" + addOrdinal(i, this.tasks.get(i)));
+            }
+            return outputs;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private List<Integer> toIndexes(List<Integer> matchKeys) {
+        return matchKeys.stream()
+                .map(this.keys::indexOf)
+                .sorted()
+                .collect(Collectors.toList());
+    }
+
+    private Queue<String> stringifyMatches(List<Task> tasks, List<Integer> matchIndexes) {
+        OutputBuffer outputs = new OutputBuffer();
+        this.writeMatches(tasks, matchIndexes, outputs::add, Page.ALL);
+        return outputs;
+    }
+
+    /**
+     * Writes the tasks matching a query as matches if the query has filters, or else as {@link #stringify(Consumer,
+     * Page)} lists them, as the query only sorts the tasks.
+     */
+    private void writeQueried(Query query, List<Task> tasks, List<Integer> matchIndexes, Consumer<String> out,
+                              Page page) {
+        if (query.hasFilters()) {
+            this.writeMatches(tasks, matchIndexes, out, page);
+            return;
+        }
+        int count = matchIndexes.size();
+        if (count < 1) {
+            out.accept("No tasks found.");
+            return;
+        }
+        int from = page.from(count);
+        int to = page.to(count);
+        out.accept("tasks" + page.describe(count) + ": ");
+        for (int i = from; i < to; i++) {
+            int index = matchIndexes.get(i);
+            out.accept("\t" + addOrdinal(index, tasks.get(index)));
+        }
+    }
+
+    private void writeMatches(List<Task> tasks, List<Integer> matchIndexes, Consumer<String> out, Page page) {
+        int count = matchIndexes.size();
+        if (count < 1) {
+            out.accept("No matches found.");
+            return;
+        }
+        int from = page.from(count);
+        int to = page.to(count);
+        out.accept(String.format("%d match%s found%s:", count, count > 1 ? "es" : "", page.describe(count)));
+        for (int i = from; i < to; i++) {
+            int index = matchIndexes.get(i);
+            out.accept("\t" + addOrdinal(index, tasks.get(index)));
+        }
+    }
+
+    /**
+     * Undoes the last change to the tasks (adding, marking or deleting) that has not been undone.
+     * The tasks are restored from the {@link History}, and saved as a new snapshot.
+     *
+     * @return a description of the change undone.
+     */
+    public Queue<String> undo() {
+        lock.lock();
+        try {
+            History.Step step = this.history.undo(this.current());
+            if (step == null) {
+                return OutputBuffer.of("Nothing to undo.");
+            }
+            this.restore(step.getTasks());
+            return OutputBuffer.of("undone: " + step.getName());
+        } finally {
+            lock.unlock();
+            this.runPendingSaves();
+        }
+    }
+
+    /**
+     * Redoes the last change undone, unless the tasks have been changed since.
+     *
+     * @return a description of the change redone.
+     */
+    public Queue<String> redo() {
+        lock.lock();
+        try {
+            History.Step step = this.history.redo(this.current());
+            if (step == null) {
+                return OutputBuffer.of("Nothing to redo.");
+            }
+            this.restore(step.getTasks());
+            return OutputBuffer.of("redone: " + step.getName());
+        } finally {
+            lock.unlock();
+            this.runPendingSaves();
+        }
+    }
+
+    /**
+     * Sets the number of changes that can be undone.
+     *
+     * @param limit the number of changes, or 0 to keep no history.
+     */
+    public void setHistoryLimit(int limit) {
+        lock.lock();
+        try {
+            this.history.setLimit(limit);
+            this.isHistoryChanged = true;
+            if (limit == 0 && !this.isConcurrent) {
+                this.snapshot = null;
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Replaces the tasks with a version from the history. The indexes are rebuilt when they are next used.
+     */
+    private void restore(PersistentVector<Task> version) {
+        this.tasks = this.tasks instanceof ColumnarTaskList
+                ? ColumnarTaskList.copyOf(version)
+                : new ArrayList<>(version);
+        this.keys = new TaskKeys(version.size());
+        this.trigramIndex = null;
+        this.intervalIndex = null;
+        this.dueDateHeap = null;
+        this.doneBitmap = null;
+        this.isIndexChanged = false;
+        this.isModified = true;
+        this.modCount++;
+        this.snapshot = version;
+        this.isHistoryChanged = true;
+        if (this.isSaveDeferred) {
+            this.hasUnsavedChanges = true;
         } else {
-            String countStr = String.format("%d match%s found:", matchIndexes.size(), matchIndexes.size() > 1 ? "es" : "");
-            Queue<String> header = new LinkedList<>(Collections.singletonList(countStr));
-            Queue<String> outputs = matchIndexes.stream().map(i -> "\t" + addOrdinal(i, this.tasks.get(i))).collect(Collectors.toCollection(LinkedList::new));
-            header.addAll(outputs);
-            return header;
+            pendingSaves.add(() -> storage.save(version));
+        }
+    }
+
+    /**
+     * Returns the current version of the tasks, which is kept from now on. The first version of a
+     * {@link MappedTaskList} reads its tasks from a copy of it as they are needed, rather than decoding all of them.
+     */
+    private PersistentVector<Task> current() {
+        if (this.snapshot == null) {
+            this.snapshot = this.tasks instanceof MappedTaskList
+                    ? PersistentVector.lazyCopyOf(((MappedTaskList) this.tasks).copy())
+                    : PersistentVector.copyOf(this.tasks);
+        }
+        return this.snapshot;
+    }
+
+    /**
+     * Returns the version of the tasks before the change about to be made, if it is needed for the history.
+     */
+    private PersistentVector<Task> versionBeforeChange() {
+        return this.history.getLimit() > 0 ? this.current() : this.snapshot;
+    }
+
+    private void record(String name, PersistentVector<Task> before) {
+        if (before != null) {
+            this.history.record(name, before);
+            this.isHistoryChanged = true;
+        }
+    }
+
+    /**
+     * Sets whether changes are only saved when {@link #save()} (or {@link #flush()}) is called, instead of as they are
+     * made. Deferring saves lets a batch of changes be saved as a single snapshot, at the risk of losing all of them
+     * if the program stops before they are saved.
+     *
+     * @param isSaveDeferred true to defer saves.
+     */
+    public void setSaveDeferred(boolean isSaveDeferred) {
+        lock.lock();
+        try {
+            this.isSaveDeferred = isSaveDeferred;
+            if (!isSaveDeferred) {
+                this.saveLocked();
+            }
+        } finally {
+            lock.unlock();
+        }
+        this.runPendingSaves();
+    }
+
+    /**
+     * Saves every change whose save has been deferred, as a single snapshot.
+     *
+     * @see #setSaveDeferred(boolean)
+     */
+    public void save() {
+        lock.lock();
+        try {
+            this.saveLocked();
+        } finally {
+            lock.unlock();
+        }
+        this.runPendingSaves();
+    }
+
+    private void saveLocked() {
+        if (this.hasUnsavedChanges) {
+            List<Task> saved = this.view();
+            pendingSaves.add(() -> storage.save(saved));
+            this.hasUnsavedChanges = false;
+        }
+    }
+
+    /**
+     * Passes the pending saves to the storage, in order. Whichever thread gets to do so also passes the saves of
+     * changes made by other threads in the meantime, so the changes are not held up by the storage.
+     */
+    private void runPendingSaves() {
+        saveLock.lock();
+        try {
+            for (Runnable save = pendingSaves.poll(); save != null; save = pendingSaves.poll()) {
+                save.run();
+            }
+        } finally {
+            saveLock.unlock();
         }
     }
 
-    private void save() {
-        storage.save(this.tasks);
+    /**
+     * Sets whether the tasks can be listed and searched by several threads while they are changed.
+     * In concurrent mode, an immutable snapshot of the tasks is kept alongside them: every change replaces the
+     * snapshot, sharing most of it with the previous one, and listing and searching for short terms read the latest
+     * snapshot without locking. Other queries wait for changes in progress, but never for the storage.
+     * <p>
+     * Every front end of Duke (the GUI's worker, {@code --script} and {@code --serve}) runs commands on a single
+     * thread, so concurrent mode would only make their changes slower, and is off by default. Code that reads the
+     * tasks from other threads while commands run, such as a server with a thread per client, enables it by calling
+     * this method before starting those threads.
+     *
+     * @param isConcurrent true to keep a snapshot of the tasks.
+     */
+    public void setConcurrent(boolean isConcurrent) {
+        lock.lock();
+        try {
+            this.isConcurrent = isConcurrent;
+            if (isConcurrent) {
+                this.current();
+            } else if (this.history.getLimit() == 0) {
+                this.snapshot = null;
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Sets whether the tasks are stored in columns, as a {@link ColumnarTaskList}, rather than as an object each.
+     * Columns take much less memory for many tasks, and searching them does not create any tasks, but tasks are
+     * created whenever they are listed or changed.
+     * <p>
+     * Versions kept for the history or concurrent mode hold tasks as objects, so storing tasks in columns only saves
+     * memory with the history limit at 0 and concurrent mode off.
+     *
+     * @param isColumnar true to store the tasks in columns.
+     */
+    public void setColumnar(boolean isColumnar) {
+        lock.lock();
+        try {
+            if (isColumnar != this.tasks instanceof ColumnarTaskList) {
+                this.tasks = isColumnar ? ColumnarTaskList.copyOf(this.tasks) : new ArrayList<>(this.tasks);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Returns the tasks to be read without locking: the snapshot in concurrent mode, or else the tasks themselves.
+     */
+    private List<Task> view() {
+        PersistentVector<Task> snapshot = this.snapshot;
+        return snapshot != null ? snapshot : this.tasks;
+    }
+
+    /**
+     * Waits until every change to the tasks has been saved, and saves the search index (if any) alongside them.
+     *
+     * @see Storage#flush()
+     */
+    public void flush() {
+        this.save();
+        lock.lock();
+        try {
+            // the index and history are saved for the tasks as they are saved, so every change is passed on first
+            this.runPendingSaves();
+            if (this.trigramIndex != null && this.isIndexChanged) {
+                storage.saveIndex(this.trigramIndex, this.keys);
+                this.isIndexChanged = false;
+            }
+            if (this.isHistoryChanged) {
+                // an empty history does not read the tasks, so none are copied for it
+                storage.saveHistory(this.history, this.history.isEmpty() ? PersistentVector.empty() : this.current());
+                this.isHistoryChanged = false;
+            }
+        } finally {
+            lock.unlock();
+        }
+        storage.flush();
+    }
+
+    /**
+     * Returns whether the description of a task contains the given term, without creating the task if the tasks are
+     * stored in columns.
+     */
+    private static boolean descContains(List<Task> tasks, int index, String term) {
+        if (tasks instanceof ColumnarTaskList) {
+            return ((ColumnarTaskList) tasks).containsIgnoreCase(index, term);
+        }
+        return tasks.get(index).getDesc().toLowerCase().contains(term);
+    }
+
+    private TrigramIndex getTrigramIndex() {
+        if (this.trigramIndex != null) {
+            return this.trigramIndex;
+        }
+        // a saved index only matches the tasks as they were loaded
+        TrigramIndex index = this.isModified ? null : storage.loadIndex();
+        if (index == null) {
+            index = new TrigramIndex();
+            for (int i = 0; i < this.tasks.size(); i++) {
+                index.add(this.keys.keyOf(i), this.tasks instanceof ColumnarTaskList
+                        ? ((ColumnarTaskList) this.tasks).getDesc(i)
+                        : this.tasks.get(i).getDesc());
+            }
+            this.isIndexChanged = true;
+        }
+        this.trigramIndex = index;
+        return index;
+    }
+
+    private IntervalIndex getIntervalIndex() {
+        if (this.intervalIndex == null) {
+            IntervalIndex index = new IntervalIndex();
+            for (int i = 0; i < this.tasks.size(); i++) {
+                index.add(this.keys.keyOf(i), this.tasks.get(i));
+            }
+            this.intervalIndex = index;
+        }
+        return this.intervalIndex;
+    }
+
+    private DueDateHeap getDueDateHeap() {
+        if (this.dueDateHeap == null) {
+            DueDateHeap heap = new DueDateHeap();
+            for (int i = 0; i < this.tasks.size(); i++) {
+                heap.add(this.keys.keyOf(i), this.tasks.get(i));
+            }
+            this.dueDateHeap = heap;
+        }
+        return this.dueDateHeap;
+    }
+
+    private BitSet getDoneBitmap() {
+        if (this.doneBitmap == null) {
+            BitSet bitmap = new BitSet(this.tasks.size());
+            for (int i = 0; i < this.tasks.size(); i++) {
+                bitmap.set(i, this.tasks instanceof ColumnarTaskList
+                        ? ((ColumnarTaskList) this.tasks).isDone(i)
+                        : this.tasks.get(i).isDone());
+            }
+            this.doneBitmap = bitmap;
+        }
+        return this.doneBitmap;
     }
 
     /**
@@ -244,4 +1060,61 @@ public class TaskList {
         assert index >= 0 && task != null;
         return (index + 1) + ". " + task;
     }
-}
\ No newline at end of file
+
+    /**
+     * The lines of a version of the tasks, which are only rendered once for as long as the version is listed.
+     */
+    private static class RenderedLines {
+        private static final String[] NO_LINES = new String[0];
+
+        private final List<Task> tasks;
+        private final int modCount;
+        private final int size;
+        /**
+         * The lines rendered so far, which only has room for the lines up to the furthest one listed, so that listing
+         * the first page of many tasks does not allocate a line for each of them.
+         */
+        private volatile String[] lines = NO_LINES;
+
+        RenderedLines(List<Task> tasks, int modCount) {
+            this.tasks = tasks;
+            this.modCount = modCount;
+            this.size = tasks.size();
+        }
+
+        /**
+         * Returns the lines, with room for at least the lines before the given index. Lines rendered by another thread
+         * while the lines grow may be lost, in which case they are only rendered again.
+         */
+        String[] linesUntil(int end) {
+            String[] lines = this.lines;
+            if (lines.length < end) {
+                lines = Arrays.copyOf(lines, Math.min(size, Math.max(end, 2 * lines.length)));
+                this.lines = lines;
+            }
+            return lines;
+        }
+    }
+
+    /**
+     * A way of finding the candidates for a query, and the most candidates it can find.
+     */
+    private static class AccessPath {
+        private final String name;
+        private final int estimate;
+        /**
+         * Passes the index of every candidate to the given action, in increasing order.
+         */
+        private final Consumer<IntConsumer> candidates;
+
+        AccessPath(String name, int estimate, Consumer<IntConsumer> candidates) {
+            this.name = name;
+            this.estimate = estimate;
+            this.candidates = candidates;
+        }
+
+        AccessPath orCheaper(AccessPath other) {
+            return other.estimate < this.estimate ? other : this;
+        }
+    }
+}
@@ -0,0 +1,241 @@
+package duke.util;
+
+import java.util.AbstractQueue;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Queue;
+
+/**
+ * Read-only queue of the tokens of an input line, stored as spans of the line.
+ * The {@link String} of a token is only created when it is retrieved, and slices of the queue share the spans of the
+ * line, so parsing a line into (sub)command arguments does not copy any words.
+ * Tokens cannot be added to the queue.
+ *
+ * @see Tokenizer
+ * @see Parser#extractTokenArgs(java.util.Set, Queue, boolean)
+ */
+public class TokenQueue extends AbstractQueue<String> {
+    /**
+     * The tokenizer of each thread, reset for every line it splits.
+     */
+    private static final ThreadLocal<Tokenizer> TOKENIZER = ThreadLocal.withInitial(Tokenizer::new);
+
+    private final CharSequence text;
+    /**
+     * The start and end of every token of the line, in pairs.
+     */
+    private final int[] spans;
+    private final int tail;
+    private int head;
+
+    private TokenQueue(CharSequence text, int[] spans, int head, int tail) {
+        this.text = text;
+        this.spans = spans;
+        this.head = head;
+        this.tail = tail;
+    }
+
+    /**
+     * Splits a line into its whitespace-delimited tokens.
+     *
+     * @param text the line.
+     * @return the tokens of the line.
+     */
+    public static TokenQueue of(CharSequence text) {
+        Tokenizer tokenizer = TOKENIZER.get().reset(text);
+        int[] spans = new int[16];
+        int count = 0;
+        while (tokenizer.next()) {
+            if (2 * count == spans.length) {
+                spans = Arrays.copyOf(spans, spans.length * 2);
+            }
+            spans[2 * count] = tokenizer.start();
+            spans[2 * count + 1] = tokenizer.end();
+            count++;
+        }
+        return new TokenQueue(text, spans, 0, count);
+    }
+
+    /**
+     * Returns the given words as a queue of tokens, which is the queue itself if it is already a token queue.
+     *
+     * @param words the words, which are taken from the given queue.
+     * @return the tokens of the words.
+     */
+    public static TokenQueue of(Queue<String> words) {
+        if (words instanceof TokenQueue) {
+            TokenQueue tokens = ((TokenQueue) words).copy();
+            words.clear();
+            return tokens;
+        }
+        TokenQueue tokens = TokenQueue.of(String.join(" ", words));
+        words.clear();
+        return tokens;
+    }
+
+    /**
+     * Joins the given words with single spaces, without creating a string per word if they are tokens.
+     *
+     * @param words the words to be joined.
+     * @return the joined words.
+     */
+    public static String join(Queue<String> words) {
+        if (!(words instanceof TokenQueue)) {
+            return String.join(" ", words);
+        }
+        TokenQueue tokens = (TokenQueue) words;
+        StringBuilder joined = new StringBuilder();
+        for (int i = 0; i < tokens.size(); i++) {
+            if (i > 0) {
+                joined.append(' ');
+            }
+            joined.append(tokens.text, tokens.start(i), tokens.end(i));
+        }
+        return joined.toString();
+    }
+
+    /**
+     * Returns the token at the given position of the queue.
+     *
+     * @param index the position of the token, from the head of the queue.
+     * @return the token.
+     */
+    public String get(int index) {
+        if (index < 0 || index >= this.size()) {
+            throw new IndexOutOfBoundsException("Token " + index + " out of " + this.size());
+        }
+        return text.subSequence(this.start(index), this.end(index)).toString();
+    }
+
+    /**
+     * Returns whether the token at the given position of the queue is the given string, without creating the token.
+     *
+     * @param index the position of the token, from the head of the queue.
+     * @param s     the string to compare the token to.
+     * @return true if the token is equal to the string.
+     */
+    public boolean matches(int index, String s) {
+        int start = this.start(index);
+        if (this.end(index) - start != s.length()) {
+            return false;
+        }
+        for (int i = 0; i < s.length(); i++) {
+            if (text.charAt(start + i) != s.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Looks up the token at the given position of the queue in a trie, without creating the token.
+     *
+     * @param index the position of the token, from the head of the queue.
+     * @param trie  the trie to look the token up in.
+     * @param <V>   the type of the values of the trie.
+     * @return the value of the token in the trie, or null if it has none.
+     */
+    public <V> V lookUp(int index, Trie<V> trie) {
+        return trie.get(text, this.start(index), this.end(index));
+    }
+
+    /**
+     * Appends the token at the given position of the queue to a builder, without creating the token.
+     *
+     * @param index   the position of the token, from the head of the queue.
+     * @param builder the builder to append to.
+     */
+    public void appendTo(int index, StringBuilder builder) {
+        builder.append(text, this.start(index), this.end(index));
+    }
+
+    /**
+     * Returns a queue of some of the tokens of this queue, independent of this queue.
+     *
+     * @param from the position of the first token, from the head of the queue (inclusive).
+     * @param to   the position of the last token, from the head of the queue (exclusive).
+     * @return the tokens between the positions.
+     */
+    public TokenQueue slice(int from, int to) {
+        if (from < 0 || to > this.size() || from > to) {
+            throw new IndexOutOfBoundsException("Slice " + from + "-" + to + " out of " + this.size());
+        }
+        return new TokenQueue(text, spans, head + from, head + to);
+    }
+
+    /**
+     * Returns a queue of the remaining tokens of this queue, independent of this queue.
+     *
+     * @return a copy of the queue.
+     */
+    public TokenQueue copy() {
+        return new TokenQueue(text, spans, head, tail);
+    }
+
+    /**
+     * Returns the position of the head of the queue among the tokens of the line.
+     */
+    int position() {
+        return head;
+    }
+
+    @Override
+    public boolean offer(String s) {
+        throw new UnsupportedOperationException("Tokens cannot be added.");
+    }
+
+    @Override
+    public String poll() {
+        if (head == tail) {
+            return null;
+        }
+        String token = this.get(0);
+        head++;
+        return token;
+    }
+
+    @Override
+    public String peek() {
+        return head == tail ? null : this.get(0);
+    }
+
+    @Override
+    public void clear() {
+        head = tail;
+    }
+
+    @Override
+    public int size() {
+        return tail - head;
+    }
+
+    @Override
+    public Iterator<String> iterator() {
+        return new Iterator<>() {
+            private int index = head;
+
+            @Override
+            public boolean hasNext() {
+                return index < tail;
+            }
+
+            @Override
+            public String next() {
+                if (index >= tail) {
+                    throw new NoSuchElementException();
+                }
+                index++;
+                return text.subSequence(spans[2 * index - 2], spans[2 * index - 1]).toString();
+            }
+        };
+    }
+
+    private int start(int index) {
+        return spans[2 * (head + index)];
+    }
+
+    private int end(int index) {
+        return spans[2 * (head + index) + 1];
+    }
+}
@@ -0,0 +1,77 @@
+package duke.util;
+
+/**
+ * Cursor over the whitespace-delimited tokens of a {@link CharSequence}.
+ * Tokens are reported as spans of the input, so no {@link String} is created for a token unless its value is needed.
+ * A tokenizer can be {@link #reset(CharSequence)} to tokenize another input.
+ * <p>
+ * Unlike {@code String.split("\\s")}, consecutive whitespace characters never produce empty tokens.
+ *
+ * @see TokenQueue
+ */
+public class Tokenizer {
+    private CharSequence text = "";
+    private int position;
+    private int start;
+    private int end;
+
+    /**
+     * Moves the cursor to the start of the given input.
+     *
+     * @param text the input to tokenize.
+     * @return this tokenizer.
+     */
+    public Tokenizer reset(CharSequence text) {
+        this.text = text;
+        this.position = 0;
+        this.start = 0;
+        this.end = 0;
+        return this;
+    }
+
+    /**
+     * Moves the cursor to the next token.
+     *
+     * @return true if there is a next token, false if the end of the input was reached.
+     */
+    public boolean next() {
+        int length = text.length();
+        while (position < length && Tokenizer.isWhitespace(text.charAt(position))) {
+            position++;
+        }
+        if (position == length) {
+            return false;
+        }
+        start = position;
+        while (position < length && !Tokenizer.isWhitespace(text.charAt(position))) {
+            position++;
+        }
+        end = position;
+        return true;
+    }
+
+    /**
+     * Returns the position of the first character of the current token.
+     *
+     * @return the start of the token (inclusive).
+     */
+    public int start() {
+        return start;
+    }
+
+    /**
+     * Returns the position after the last character of the current token.
+     *
+     * @return the end of the token (exclusive).
+     */
+    public int end() {
+        return end;
+    }
+
+    /**
+     * Whether a character is whitespace, as matched by {@code \s} in a regular expression.
+     */
+    private static boolean isWhitespace(char c) {
+        return c == ' ' || c == '\t' || c == '\n' || c == '\u000B' || c == '\f' || c == '\r';
+    }
+}
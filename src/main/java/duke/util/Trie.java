@@ -0,0 +1,201 @@
+package duke.util;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Prefix tree mapping strings to values, used to resolve (abbreviated) command names and aliases.
+ * Every node counts the keys below it, so that the number of keys starting with a prefix, and the key if there is only
+ * one, are found in time proportional to the length of the prefix rather than the number of keys.
+ *
+ * @param <V> the type of the values.
+ * @see Parser#parseCommand(String, State)
+ */
+public class Trie<V> {
+    private final Node<V> root = new Node<>();
+    private int modCount;
+
+    /**
+     * Maps a key to a value, replacing any previous value.
+     *
+     * @param key   the key.
+     * @param value the value, which cannot be null.
+     * @return the previous value of the key, or null if there was none.
+     */
+    public V put(String key, V value) {
+        assert value != null;
+        V prev = this.get(key);
+        Node<V> node = root;
+        for (int i = 0; i < key.length(); i++) {
+            if (prev == null) {
+                node.count++;
+            }
+            node = node.children.computeIfAbsent(key.charAt(i), c -> new Node<>());
+        }
+        if (prev == null) {
+            node.count++;
+        }
+        node.value = value;
+        modCount++;
+        return prev;
+    }
+
+    /**
+     * Removes the value of a key.
+     *
+     * @param key the key.
+     * @return the removed value, or null if the key had no value.
+     */
+    public V remove(String key) {
+        V prev = this.get(key);
+        if (prev == null) {
+            return null;
+        }
+        modCount++;
+        Node<V> node = root;
+        node.count--;
+        for (int i = 0; i < key.length(); i++) {
+            Node<V> child = node.children.get(key.charAt(i));
+            if (--child.count == 0) {
+                // nothing else is below this node, so the rest of the path can be dropped
+                node.children.remove(key.charAt(i));
+                return prev;
+            }
+            node = child;
+        }
+        node.value = null;
+        return prev;
+    }
+
+    /**
+     * Returns the value of a key.
+     *
+     * @param key the key.
+     * @return the value of the key, or null if it has none.
+     */
+    public V get(String key) {
+        Node<V> node = this.find(key);
+        return node == null ? null : node.value;
+    }
+
+    /**
+     * Returns the value of the key in the given part of a character sequence, without creating the key.
+     *
+     * @param text  the text containing the key.
+     * @param start the start of the key in the text (inclusive).
+     * @param end   the end of the key in the text (exclusive).
+     * @return the value of the key, or null if it has none.
+     */
+    public V get(CharSequence text, int start, int end) {
+        Node<V> node = this.find(text, start, end);
+        return node == null ? null : node.value;
+    }
+
+    /**
+     * Returns the number of keys starting with the given prefix (including the prefix itself).
+     *
+     * @param prefix the prefix.
+     * @return the number of keys with the prefix.
+     */
+    public int countWithPrefix(String prefix) {
+        Node<V> node = this.find(prefix);
+        return node == null ? 0 : node.count;
+    }
+
+    /**
+     * Returns the value of the only key starting with the given prefix.
+     *
+     * @param prefix the prefix.
+     * @return the value of the key, or null if no key or more than one key starts with the prefix.
+     */
+    public V getUniqueWithPrefix(String prefix) {
+        Node<V> node = this.find(prefix);
+        if (node == null || node.count != 1) {
+            return null;
+        }
+        while (node.value == null) {
+            node = node.children.values().iterator().next();
+        }
+        return node.value;
+    }
+
+    /**
+     * Returns the keys starting with the given prefix, in sorted order.
+     *
+     * @param prefix the prefix.
+     * @return the keys with the prefix.
+     */
+    public List<String> keysWithPrefix(String prefix) {
+        List<String> keys = new ArrayList<>();
+        Node<V> node = this.find(prefix);
+        if (node != null) {
+            Trie.collect(node, new StringBuilder(prefix), keys);
+        }
+        return keys;
+    }
+
+    /**
+     * Returns the keys and values, sorted by key.
+     *
+     * @return a copy of the mappings.
+     */
+    public Map<String, V> toMap() {
+        Map<String, V> map = new TreeMap<>();
+        for (String key : this.keysWithPrefix("")) {
+            map.put(key, this.get(key));
+        }
+        return map;
+    }
+
+    /**
+     * Returns the number of keys.
+     *
+     * @return the number of keys.
+     */
+    public int size() {
+        return root.count;
+    }
+
+    /**
+     * Returns the number of times that the trie has been changed, to tell whether it has changed since.
+     *
+     * @return the number of changes.
+     */
+    public int getModCount() {
+        return modCount;
+    }
+
+    private Node<V> find(String prefix) {
+        return this.find(prefix, 0, prefix.length());
+    }
+
+    private Node<V> find(CharSequence text, int start, int end) {
+        Node<V> node = root;
+        for (int i = start; i < end && node != null; i++) {
+            node = node.children.get(text.charAt(i));
+        }
+        return node;
+    }
+
+    private static <V> void collect(Node<V> node, StringBuilder prefix, List<String> keys) {
+        if (node.value != null) {
+            keys.add(prefix.toString());
+        }
+        for (Map.Entry<Character, Node<V>> entry : node.children.entrySet()) {
+            prefix.append(entry.getKey());
+            Trie.collect(entry.getValue(), prefix, keys);
+            prefix.setLength(prefix.length() - 1);
+        }
+    }
+
+    /**
+     * A node of the trie, with the value of the key ending at it (if any) and the number of keys below it.
+     */
+    private static class Node<V> {
+        private final TreeMap<Character, Node<V>> children = new TreeMap<>();
+        private V value;
+        private int count;
+    }
+}
@@ -0,0 +1,236 @@
+package duke.util;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Inverted index from every trigram (three consecutive characters) of the lowercased task descriptions to the keys of
+ * the tasks containing it. A task containing a search term contains every trigram of the term, so only the tasks in
+ * the intersection of those postings have to be checked, instead of every task.
+ * <p>
+ * Deleted tasks are not removed from the postings immediately: candidates are checked against the current
+ * {@link TaskKeys} anyway, and deleted keys are purged from the postings once there are as many of them as there are
+ * tasks.
+ *
+ * @see TaskList#find(String)
+ */
+public class TrigramIndex {
+    /**
+     * The length of the indexed grams. Shorter search terms cannot be looked up in the index.
+     */
+    public static final int GRAM_LENGTH = 3;
+    private static final int MIN_PURGE_SIZE = 1024;
+
+    private final HashMap<Long, Postings> postings = new HashMap<>();
+    private int removedCount;
+
+    /**
+     * Indexes the description of a task.
+     *
+     * @param key  the key of the task.
+     * @param desc the description of the task.
+     */
+    public void add(int key, String desc) {
+        String text = desc.toLowerCase();
+        for (int i = 0; i + GRAM_LENGTH <= text.length(); i++) {
+            postings.computeIfAbsent(gramAt(text, i), gram -> new Postings()).add(key);
+        }
+    }
+
+    /**
+     * Records that the given number of tasks have been deleted, purging the postings if enough tasks have been
+     * deleted.
+     *
+     * @param keys  the keys of the remaining tasks.
+     * @param count the number of tasks deleted.
+     */
+    public void remove(TaskKeys keys, int count) {
+        removedCount += count;
+        if (removedCount >= Math.max(MIN_PURGE_SIZE, keys.size())) {
+            this.purge(keys);
+        }
+    }
+
+    private void purge(TaskKeys keys) {
+        int[] indexes = keys.indexTable();
+        postings.values().removeIf(posting -> posting.retain(indexes) == 0);
+        removedCount = 0;
+    }
+
+    /**
+     * Returns the keys of the tasks whose descriptions may contain the given term, in increasing order.
+     * Every task containing the term is returned, but the returned tasks need not contain it.
+     *
+     * @param term the lowercased search term, of at least {@value #GRAM_LENGTH} characters.
+     * @return the keys of the candidate tasks.
+     */
+    public int[] candidates(String term) {
+        assert term.length() >= GRAM_LENGTH;
+        List<Postings> lists = new ArrayList<>();
+        for (int i = 0; i + GRAM_LENGTH <= term.length(); i++) {
+            Postings posting = postings.get(gramAt(term, i));
+            if (posting == null) {
+                return new int[0];
+            }
+            lists.add(posting);
+        }
+        // intersecting from the shortest postings keeps the intermediate results as small as possible
+        lists.sort(Comparator.comparingInt(posting -> posting.size));
+        int[] matches = Arrays.copyOf(lists.get(0).keys, lists.get(0).size);
+        int count = matches.length;
+        for (int i = 1; i < lists.size() && count > 0; i++) {
+            count = lists.get(i).retainIn(matches, count);
+        }
+        return Arrays.copyOf(matches, count);
+    }
+
+    /**
+     * Writes the index, with keys converted to the current indexes of their tasks.
+     *
+     * @param out  the output to write to.
+     * @param keys the keys of the tasks.
+     * @throws IOException if the output cannot be written to.
+     */
+    public void writeTo(DataOutput out, TaskKeys keys) throws IOException {
+        int[] indexes = keys.indexTable();
+        out.writeInt(postings.size());
+        byte[] bytes = new byte[0];
+        for (Map.Entry<Long, Postings> entry : postings.entrySet()) {
+            Postings posting = entry.getValue();
+            if (bytes.length < posting.size * 5) {
+                bytes = new byte[posting.size * 5];
+            }
+            // indexes are delta-encoded as varints, as most of them are close to the previous one
+            int count = 0;
+            int length = 0;
+            int prev = 0;
+            for (int i = 0; i < posting.size; i++) {
+                int index = indexes[posting.keys[i]];
+                if (index < 0) {
+                    continue;
+                }
+                int delta = index - prev;
+                while ((delta & ~0x7F) != 0) {
+                    bytes[length++] = (byte) ((delta & 0x7F) | 0x80);
+                    delta >>>= 7;
+                }
+                bytes[length++] = (byte) delta;
+                prev = index;
+                count++;
+            }
+            out.writeLong(entry.getKey());
+            out.writeInt(count);
+            out.write(bytes, 0, length);
+        }
+    }
+
+    /**
+     * Reads an index written by {@link #writeTo(DataOutput, TaskKeys)}, for tasks keyed by their indexes.
+     *
+     * @param in the input to read from.
+     * @return the index that was read.
+     * @throws IOException if the input cannot be read.
+     */
+    public static TrigramIndex readFrom(DataInput in) throws IOException {
+        TrigramIndex index = new TrigramIndex();
+        int gramCount = in.readInt();
+        for (int i = 0; i < gramCount; i++) {
+            long gram = in.readLong();
+            Postings posting = new Postings();
+            posting.keys = new int[in.readInt()];
+            int key = 0;
+            for (int j = 0; j < posting.keys.length; j++) {
+                key += readVarInt(in);
+                posting.keys[j] = key;
+            }
+            posting.size = posting.keys.length;
+            if (posting.size > 0) {
+                index.postings.put(gram, posting);
+            }
+        }
+        return index;
+    }
+
+    private static long gramAt(String text, int start) {
+        long gram = 0;
+        for (int i = start; i < start + GRAM_LENGTH; i++) {
+            gram = (gram << Character.SIZE) | text.charAt(i);
+        }
+        return gram;
+    }
+
+    private static int readVarInt(DataInput in) throws IOException {
+        int value = 0;
+        for (int shift = 0; ; shift += 7) {
+            byte b = in.readByte();
+            value |= (b & 0x7F) << shift;
+            if (b >= 0) {
+                return value;
+            }
+        }
+    }
+
+    /**
+     * The keys of the tasks containing a trigram, in increasing order.
+     */
+    private static class Postings {
+        private int[] keys = new int[2];
+        private int size;
+
+        private void add(int key) {
+            if (size > 0 && keys[size - 1] == key) {
+                return;
+            }
+            if (size == keys.length) {
+                keys = Arrays.copyOf(keys, size * 2);
+            }
+            keys[size++] = key;
+        }
+
+        /**
+         * Keeps only the given keys that are also in this posting, by galloping through this posting.
+         *
+         * @return the number of keys kept, which are moved to the front of the array.
+         */
+        private int retainIn(int[] matches, int count) {
+            int kept = 0;
+            int low = 0;
+            for (int i = 0; i < count && low < size; i++) {
+                int key = matches[i];
+                int step = 1;
+                int high = low;
+                while (high < size && keys[high] < key) {
+                    low = high + 1;
+                    high += step;
+                    step <<= 1;
+                }
+                int found = Arrays.binarySearch(keys, low, Math.min(high + 1, size), key);
+                if (found >= 0) {
+                    matches[kept++] = key;
+                    low = found + 1;
+                } else {
+                    low = -found - 1;
+                }
+            }
+            return kept;
+        }
+
+        private int retain(int[] indexes) {
+            int count = 0;
+            for (int i = 0; i < size; i++) {
+                if (indexes[keys[i]] >= 0) {
+                    keys[count++] = keys[i];
+                }
+            }
+            size = count;
+            return count;
+        }
+    }
+}
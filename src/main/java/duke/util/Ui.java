@@ -3,6 +3,7 @@ package duke.util;
 import duke.Duke;
 import duke.command.Command;
 
+import java.io.PrintStream;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashMap;
@@ -20,6 +21,23 @@ public class Ui {
 
     private HashMap<String, String> helpDict = new HashMap<>();
     private static final List<String> HEADER_STR = Collections.singletonList("Usage: <command> [<args>]");
+    private final PrintStream out;
+
+    /**
+     * Creates a new Ui that prints to the standard output.
+     */
+    public Ui() {
+        this(System.out);
+    }
+
+    /**
+     * Creates a new Ui that prints to the given stream, e.g. a buffered one when there is no user to respond to.
+     *
+     * @param out The stream to print to.
+     */
+    public Ui(PrintStream out) {
+        this.out = out;
+    }
 
     /**
      * Creates the help message dictionary from the given Duke commands.
@@ -79,7 +97,13 @@ public class Ui {
      * @param msg The message to be printed.
      */
     public void print(String msg) {
-        this.print(new LinkedList<>(Arrays.asList(msg.split("\n"))));
+        OutputBuffer lines = OutputBuffer.acquire();
+        try {
+            lines.addLines(msg);
+            this.print(lines);
+        } finally {
+            lines.release();
+        }
     }
 
     /**
@@ -88,12 +112,45 @@ public class Ui {
      * @param lines The lines to be printed.
      */
     public void print(Queue<String> lines) {
+        this.out.print(Ui.format(lines));
+    }
+
+    /**
+     * Prints a single line with proper formatting, before the rest of the lines of the output are printed.
+     *
+     * @param line The line to be printed.
+     * @see Stateful#getSink()
+     */
+    public void printLine(String line) {
+        this.out.print('\t');
+        this.out.print(line);
+        this.out.print('\n');
+    }
+
+    /**
+     * Formats the specified lines as they are printed.
+     *
+     * @param lines The lines to be formatted.
+     * @return The formatted lines, ending with a separator line.
+     */
+    public static String format(Queue<String> lines) {
         StringBuilder outputs = new StringBuilder();
-        for (String str : lines) {
-            outputs.append("\t").append(str).append("\n");
+        if (lines instanceof OutputBuffer) {
+            ((OutputBuffer) lines).formatTo(outputs, "\t", "\n");
+        } else {
+            for (String str : lines) {
+                outputs.append("\t").append(str).append("\n");
+            }
         }
         outputs.append("-----------------------------------------------\n");
-        System.out.print(outputs);
+        return outputs.toString();
+    }
+
+    /**
+     * Writes out anything printed so far that is still buffered by the output stream.
+     */
+    public void flush() {
+        this.out.flush();
     }
 
     /**
@@ -105,7 +162,7 @@ public class Ui {
                 + "| | | | | | | |/ / _ \\\n"
                 + "| |_| | |_| |   <  __/\n"
                 + "|____/ \\__,_|_|\\_\\___|\n";
-        System.out.println("Hello, I'm\n" + logo + "how may I help?");
+        this.out.println("Hello, I'm\n" + logo + "how may I help?");
     }
 
     /**
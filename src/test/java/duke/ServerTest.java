@@ -0,0 +1,119 @@
+package duke;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.PrintWriter;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ServerTest {
+    private static final String SEPARATOR = "-----------------------------------------------";
+
+    private File file;
+    private Server server;
+    private Thread thread;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        file = File.createTempFile("duke", ".txt");
+        file.delete();
+        server = new Server(new Duke(file.getPath()), new InetSocketAddress(InetAddress.getLoopbackAddress(), 0));
+        thread = new Thread(() -> {
+            try {
+                server.run();
+            } catch (IOException e) {
+                throw new RuntimeException(e);
+            }
+        });
+        thread.start();
+    }
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        server.close();
+        thread.join();
+        for (String suffix : List.of("", ".journal", ".index", ".history", ".tmp")) {
+            new File(file.getPath() + suffix).delete();
+        }
+    }
+
+    @Test
+    void testSessions() throws IOException {
+        try (Client first = new Client(); Client second = new Client()) {
+            assertEquals(List.of("\tadded: [T][ ] read book"), first.send("add todo read book"));
+            assertEquals(List.of("\talias added: t -> list"), first.send("alias /add t /is list"));
+            assertEquals(List.of("\ttasks: ", "\t\t1. [T][ ] read book"), first.send("t"));
+            assertEquals(List.of("\tjava.lang.IllegalArgumentException: Command not found: t"), second.send("t"));
+            assertEquals(List.of("\tadded: [T][ ] return book"), second.send("add todo return book"));
+            assertEquals(List.of("\ttasks: ", "\t\t1. [T][ ] read book", "\t\t2. [T][ ] return book"),
+                    first.send("list"));
+
+            assertEquals(List.of("\tGoodbye."), second.send("exit"));
+            assertNull(second.reader.readLine());
+            assertEquals(List.of("\tmarked: 2. [T][X] return book"), first.send("mark 2"));
+        }
+    }
+
+    @Test
+    void testPipelining() throws IOException {
+        int count = 2000;
+        try (Client client = new Client()) {
+            StringBuilder lines = new StringBuilder();
+            for (int i = 0; i < count; i++) {
+                lines.append("add todo task ").append(i).append("\r\n");
+            }
+            lines.append("list\n");
+            client.writer.print(lines);
+            client.writer.flush();
+            for (int i = 0; i < count; i++) {
+                assertEquals(List.of("\tadded: [T][ ] task " + i), client.receive());
+            }
+            List<String> list = client.receive();
+            assertEquals(count + 1, list.size());
+            assertEquals("\t\t" + count + ". [T][ ] task " + (count - 1), list.get(count));
+        }
+    }
+
+    private class Client implements AutoCloseable {
+        private final Socket socket;
+        private final BufferedReader reader;
+        private final PrintWriter writer;
+
+        private Client() throws IOException {
+            socket = new Socket(InetAddress.getLoopbackAddress(), server.getPort());
+            reader = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8));
+            writer = new PrintWriter(socket.getOutputStream(), true, StandardCharsets.UTF_8);
+        }
+
+        private List<String> send(String line) throws IOException {
+            writer.println(line);
+            return receive();
+        }
+
+        private List<String> receive() throws IOException {
+            List<String> lines = new ArrayList<>();
+            for (String line = reader.readLine(); !SEPARATOR.equals(line); line = reader.readLine()) {
+                assertNotNull(line);
+                lines.add(line);
+            }
+            return lines;
+        }
+
+        @Override
+        public void close() throws IOException {
+            socket.close();
+        }
+    }
+}
@@ -51,4 +51,12 @@ public class TaskTest {
         assertTrue(event.isDone());
         assertEquals("[E][X] test (from: Wed, 1 Jan 2020) (to: Thu, 2 Jan 2020)", event.toString());
     }
-}
\ No newline at end of file
+
+    @Test
+    void testRenderedOnce() {
+        assertSame(deadline.toString(), deadline.toString());
+        deadline.mark(true);
+        assertEquals("[D][X] test (by: Wed, 1 Jan 2020)", deadline.toString());
+        assertEquals("[D][ ] test (by: Wed, 1 Jan 2020)", deadline.withDone(false).toString());
+    }
+}
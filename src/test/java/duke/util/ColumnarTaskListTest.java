@@ -0,0 +1,97 @@
+package duke.util;
+
+import duke.task.Deadline;
+import duke.task.Event;
+import duke.task.Task;
+import duke.task.ToDo;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ColumnarTaskListTest {
+
+    @Test
+    void testSameAsArrayList() {
+        Random random = new Random(42);
+        List<Task> expected = new ArrayList<>();
+        ColumnarTaskList actual = new ColumnarTaskList();
+        for (int step = 0; step < 5000; step++) {
+            int op = random.nextInt(10);
+            if (op < 5 || expected.isEmpty()) {
+                Task task = ColumnarTaskListTest.randomTask(random, step);
+                int index = random.nextInt(expected.size() + 1);
+                expected.add(index, task);
+                actual.add(index, task);
+            } else if (op < 8) {
+                int index = random.nextInt(expected.size());
+                Task task = random.nextBoolean()
+                        ? expected.get(index).withDone(!expected.get(index).isDone())
+                        : ColumnarTaskListTest.randomTask(random, step);
+                expected.set(index, task);
+                actual.set(index, task);
+            } else if (op < 9) {
+                int index = random.nextInt(expected.size());
+                assertEquals(expected.remove(index).toString(), actual.remove(index).toString());
+            } else {
+                Selection selection = Selection.of(random.ints(3, 0, expected.size()).toArray());
+                selection.removeFrom(expected);
+                selection.removeFrom(actual);
+            }
+        }
+        assertEquals(expected.size(), actual.size());
+        assertEquals(expected.stream().map(Task::toString).collect(Collectors.toList()),
+                actual.stream().map(Task::toString).collect(Collectors.toList()));
+        for (int i = 0; i < expected.size(); i++) {
+            assertEquals(expected.get(i).isDone(), actual.isDone(i));
+            assertEquals(expected.get(i).getDesc(), actual.getDesc(i));
+        }
+    }
+
+    @Test
+    void testContainsIgnoreCase() {
+        ColumnarTaskList tasks = ColumnarTaskList.copyOf(List.of(new ToDo("Read BOOK"), new ToDo("bo")));
+        assertTrue(tasks.containsIgnoreCase(0, "book"));
+        assertTrue(tasks.containsIgnoreCase(0, ""));
+        assertFalse(tasks.containsIgnoreCase(0, "books"));
+        assertFalse(tasks.containsIgnoreCase(1, "book"));
+    }
+
+    @Test
+    void testCopy() {
+        ColumnarTaskList tasks = ColumnarTaskList.copyOf(List.of(new ToDo("read book"),
+                new Deadline("return book", "2023-01-01")));
+        ColumnarTaskList copy = tasks.copy();
+        tasks.set(0, tasks.get(0).withDone(true));
+        tasks.add(new ToDo("buy bread"));
+        copy.add(new Event("cruise", "2023-02-01", "2023-02-10"));
+        assertEquals(List.of("[T][ ] read book", "[D][ ] return book (by: Sun, 1 Jan 2023)",
+                "[E][ ] cruise (from: Wed, 1 Feb 2023) (to: Fri, 10 Feb 2023)"),
+                copy.stream().map(Task::toString).collect(Collectors.toList()));
+        assertEquals("[T][X] read book", tasks.get(0).toString());
+        assertEquals("buy bread", tasks.get(2).getDesc());
+    }
+
+    private static Task randomTask(Random random, int step) {
+        String desc = "task " + step + " " + "x".repeat(random.nextInt(20));
+        Task task;
+        switch (random.nextInt(3)) {
+        case 0:
+            task = new Deadline(desc, "2023-01-0" + (1 + random.nextInt(9)));
+            break;
+        case 1:
+            task = new Event(desc, "2023-02-01", "2023-02-1" + random.nextInt(10));
+            break;
+        default:
+            task = new ToDo(desc);
+            break;
+        }
+        task.mark(random.nextBoolean());
+        return task;
+    }
+}
@@ -0,0 +1,57 @@
+package duke.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class LatencyHistogramTest {
+
+    @Test
+    void testPercentiles() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        assertEquals(0, histogram.getPercentile(50));
+        for (long v = 1; v <= 100_000; v++) {
+            histogram.record(v);
+        }
+        assertEquals(100_000, histogram.getCount());
+        assertEquals(100_000, histogram.getMax());
+        assertEquals(50_000.5, histogram.getMean(), 1e-9);
+        // within the precision of the buckets, 1/16 of the value
+        assertEquals(50_000, histogram.getPercentile(50), 50_000 / 16.0);
+        assertEquals(99_000, histogram.getPercentile(99), 99_000 / 16.0);
+        assertEquals(100_000, histogram.getPercentile(100));
+        assertEquals(1, histogram.getPercentile(0));
+    }
+
+    @Test
+    void testConcurrentRecords() throws InterruptedException {
+        LatencyHistogram histogram = new LatencyHistogram();
+        List<Thread> threads = new ArrayList<>();
+        for (int t = 0; t < 4; t++) {
+            Thread thread = new Thread(() -> {
+                for (int i = 0; i < 10_000; i++) {
+                    histogram.record(i);
+                }
+            });
+            threads.add(thread);
+            thread.start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        assertEquals(40_000, histogram.getCount());
+        assertEquals(9_999, histogram.getMax());
+    }
+
+    @Test
+    void testExtremes() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        histogram.record(-5);
+        histogram.record(Long.MAX_VALUE);
+        assertEquals(0, histogram.getPercentile(50));
+        assertEquals(Long.MAX_VALUE, histogram.getPercentile(100));
+    }
+}
@@ -0,0 +1,58 @@
+package duke.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.LinkedList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class OutputBufferTest {
+
+    @Test
+    void testLines() {
+        OutputBuffer buffer = new OutputBuffer();
+        List<String> lines = new ArrayList<>();
+        // long enough to span several chunks
+        for (int i = 0; i < 2000; i++) {
+            String line = "line " + i + " " + "x".repeat(i % 37);
+            buffer.add(line);
+            lines.add(line);
+        }
+        buffer.add("");
+        lines.add("");
+        assertEquals(lines, buffer);
+        assertEquals(String.join("\n", lines), buffer.join());
+
+        OutputBuffer copy = OutputBuffer.of("header");
+        copy.addAll(buffer);
+        assertEquals("header", copy.poll());
+        assertEquals(lines, copy);
+        assertEquals(lines.get(0), copy.peek());
+    }
+
+    @Test
+    void testFormat() {
+        OutputBuffer buffer = new OutputBuffer();
+        buffer.addLines("a\r\nb\n\nc\n");
+        assertEquals(List.of("a", "b", "", "c"), buffer);
+        assertEquals(Ui.format(new LinkedList<>(List.of("a", "b", "", "c"))), Ui.format(buffer));
+        assertEquals("b", buffer.get(1));
+        assertThrows(IndexOutOfBoundsException.class, () -> buffer.get(4));
+    }
+
+    @Test
+    void testPool() {
+        OutputBuffer buffer = OutputBuffer.acquire();
+        buffer.add("in use");
+        OutputBuffer other = OutputBuffer.acquire();
+        assertNotSame(buffer, other);
+        assertTrue(other.isEmpty());
+        buffer.release();
+        OutputBuffer reused = OutputBuffer.acquire();
+        assertSame(buffer, reused);
+        assertTrue(reused.isEmpty());
+        reused.release();
+    }
+}
@@ -0,0 +1,98 @@
+package duke.util;
+
+import duke.command.Command;
+import duke.command.NestCommand;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Queue;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ParserTest {
+
+    private final Command delete = new Command("delete", "delete help", stateful -> stateful);
+    private final Command due = new Command("due", "due help", stateful -> stateful);
+    private final Command list = new Command("list", "list help", stateful -> stateful);
+    private final Parser parser = new Parser(new Command[]{delete, due, list});
+
+    @Test
+    void testParseCommand() {
+        HashMap<String, String> aliases = new HashMap<>();
+        aliases.put("rm", "delete");
+        aliases.put("ls", "list");
+        State state = new State(false, aliases);
+
+        assertEquals(due, parser.parseCommand("due", state));
+        assertEquals(delete, parser.parseCommand("rm", state));
+        assertEquals(delete, parser.parseCommand("de", state));
+        assertEquals(list, parser.parseCommand("li", state));
+        assertEquals(delete, parser.parseCommand("r", state));
+        assertThrows(IllegalArgumentException.class, () -> parser.parseCommand("d", state));
+        // list and ls are both list
+        assertEquals(list, parser.parseCommand("l", state));
+        assertThrows(IllegalArgumentException.class, () -> parser.parseCommand("x", state));
+        assertEquals("Ambiguous command: d could be delete, due",
+                assertThrows(IllegalArgumentException.class, () -> parser.parseCommand("d", state)).getMessage());
+        assertEquals("Command not found: (empty name)",
+                assertThrows(IllegalArgumentException.class, () -> parser.parseCommand("", state)).getMessage());
+        assertEquals("Command not found: (empty name)",
+                assertThrows(IllegalArgumentException.class, () -> parser.parseLine("   ", state)).getMessage());
+
+        state.removeAlias("ls");
+        assertEquals(list, parser.parseCommand("l", state));
+        state.addAlias("del", "delete");
+        state.addAlias("dx", "nothing");
+        assertEquals(delete, parser.parseCommand("del", state));
+        assertThrows(IllegalArgumentException.class, () -> parser.parseCommand("dx", state));
+        // dx is an alias of a missing command, so it is not taken for delete
+        assertThrows(IllegalArgumentException.class, () -> parser.parseCommand("d", state));
+    }
+
+    @Test
+    void testParseLine() {
+        Command echo = new Command("echo", "echo help", (stateful, input) -> stateful.next(String.join(",", input)));
+        NestCommand mark = new NestCommand("mark", "mark help",
+                (stateful, input) -> stateful.next("toggle " + input),
+                new Command[]{
+                        new Command("/done", "done help", (stateful, input) -> stateful.next("done " + input))
+                });
+        Parser parser = new Parser(new Command[]{echo, mark});
+        State state = new State(false);
+
+        assertEquals(List.of("toggle [1, 2]", "done [3]"), run(parser, "mark 1 2 /done 3", state));
+        assertEquals(List.of("toggle [4]", "done [5, 6]"), run(parser, "mark 4 /done 5 6", state));
+        assertEquals(List.of("toggle null", "done [7]"), run(parser, "mark /done 7", state));
+        assertEquals(List.of("a,/done,b"), run(parser, "echo a /done b", state));
+        assertThrows(IllegalArgumentException.class, () -> parser.parseLine("mark", state));
+
+        state.addAlias("e", "mark");
+        assertEquals(List.of("toggle [8]"), run(parser, "e 8", state));
+        state.addAlias("e", "echo");
+        assertEquals(List.of("8"), run(parser, "e 8", state));
+    }
+
+    private static List<String> run(Parser parser, String line, State state) {
+        Stateful stateful = parser.parseLine(line, state).apply(new Stateful(new LinkedList<>(), state));
+        return new LinkedList<>(stateful.getOutputs());
+    }
+
+    @Test
+    void testExtractTokenArgs() {
+        HashMap<String, Queue<String>> args = Parser.extractTokenArgs(Set.of("/from", "/to"),
+                TokenQueue.of("  team   meeting /to 2023-01-02\t/from 2023-01-01 "));
+        assertEquals(List.of("team", "meeting"), List.copyOf(args.get("")));
+        assertEquals(List.of("2023-01-01"), List.copyOf(args.get("/from")));
+        assertEquals("2023-01-02", TokenQueue.join(args.get("/to")));
+
+        HashMap<String, String> joined = Parser.extractTokensWithJoin(Set.of("/is"),
+                new LinkedList<>(List.of("del", "/is", "delete")));
+        assertEquals("del", joined.get(""));
+        assertEquals("delete", joined.get("/is"));
+        assertThrows(IllegalArgumentException.class,
+                () -> Parser.extractTokensWithJoin(Set.of("/is"), TokenQueue.of("del /is")));
+    }
+}
@@ -0,0 +1,51 @@
+package duke.util;
+
+import duke.task.Deadline;
+import duke.task.Event;
+import duke.task.ToDo;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.LinkedList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class QueryTest {
+
+    private static Query query(String arguments) {
+        return Query.of(Parser.extractTokenArgs(Query.TOKENS, new LinkedList<>(List.of(arguments.split(" ")))));
+    }
+
+    @Test
+    void testFilters() {
+        Query query = query("/type event /before 2023-03-01 /match TRIP");
+        assertTrue(query.test(new Event("school trip", "2023-02-01", "2023-02-03")));
+        assertFalse(query.test(new Event("school trip", "2023-02-01", "2023-03-01")));
+        assertFalse(query.test(new Deadline("school trip", "2023-02-01")));
+        assertFalse(query.test(new Event("holiday", "2023-02-01", "2023-02-03")));
+        assertEquals(List.of("type is event", "before 2023-03-01", "description contains \"trip\""),
+                query.describeFilters());
+        assertTrue(query("").isEmpty());
+    }
+
+    @Test
+    void testInvalid() {
+        assertThrows(IllegalArgumentException.class, () -> query("/type chore"));
+        assertThrows(IllegalArgumentException.class, () -> query("/done maybe"));
+        assertThrows(IllegalArgumentException.class, () -> query("/before tomorrow"));
+        assertThrows(IllegalArgumentException.class, () -> query("/sort size"));
+        assertThrows(IllegalArgumentException.class, () -> query("/match"));
+    }
+
+    @Test
+    void testOrder() {
+        List<ToDo> tasks = new ArrayList<>(List.of(new ToDo("b"), new ToDo("A"), new ToDo("c")));
+        tasks.get(2).mark(true);
+        tasks.sort(query("/sort desc").getOrder());
+        assertEquals("A", tasks.get(0).getDesc());
+        tasks.sort(query("/sort done").getOrder());
+        assertEquals("c", tasks.get(2).getDesc());
+    }
+}
@@ -0,0 +1,54 @@
+package duke.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class SelectionTest {
+
+    private static Selection parse(String arguments, int size) {
+        return Selection.parse(new LinkedList<>(List.of(arguments.split(" "))), size);
+    }
+
+    @Test
+    void testParse() {
+        Selection selection = parse("1-10 20 30-40 5", 50);
+        assertEquals(22, selection.count());
+        assertEquals(0, selection.next(0));
+        assertEquals(19, selection.next(10));
+        assertTrue(selection.contains(39));
+        assertFalse(selection.contains(40));
+        assertEquals(List.of(39, 38), selection.toDescendingList().subList(0, 2));
+    }
+
+    @Test
+    void testInvalid() {
+        assertThrows(IllegalArgumentException.class, () -> parse("0", 5));
+        assertThrows(IllegalArgumentException.class, () -> parse("-1", 5));
+        assertThrows(IllegalArgumentException.class, () -> parse("3-2", 5));
+        assertThrows(IllegalArgumentException.class, () -> parse("1-x", 5));
+        assertThrows(IllegalArgumentException.class, () -> parse("2-6", 5));
+    }
+
+    @Test
+    void testRemoveFrom() {
+        List<Integer> expected = IntStream.range(0, 100).boxed()
+                .filter(i -> i % 3 != 0 && (i < 50 || i > 70))
+                .collect(Collectors.toList());
+        Selection selection = Selection.of(IntStream.range(0, 100)
+                .filter(i -> i % 3 == 0 || (i >= 50 && i <= 70))
+                .toArray());
+        List<Integer> array = IntStream.range(0, 100).boxed().collect(Collectors.toCollection(ArrayList::new));
+        selection.removeFrom(array);
+        assertEquals(expected, array);
+        List<Integer> linked = IntStream.range(0, 100).boxed().collect(Collectors.toCollection(LinkedList::new));
+        selection.removeFrom(linked);
+        assertEquals(expected, linked);
+    }
+}
@@ -0,0 +1,223 @@
+package duke.util;
+
+import duke.task.Deadline;
+import duke.task.Event;
+import duke.task.Task;
+import duke.task.ToDo;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.ObjectOutputStream;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class StorageTest {
+
+    private File file;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        file = File.createTempFile("duke", ".txt");
+        file.delete();
+    }
+
+    @AfterEach
+    void tearDown() {
+        new File(file.getPath() + ".journal").delete();
+        file.delete();
+    }
+
+    @Test
+    void testJournalReplay() throws Exception {
+        Storage storage = new Storage();
+        List<Task> tasks = new ArrayList<>();
+        storage.save(tasks, file.getPath());
+
+        Task todo = new ToDo("test");
+        tasks.add(todo);
+        storage.saveAdd(tasks, todo);
+        Task deadline = new Deadline("test2", "2020-01-01");
+        tasks.add(deadline);
+        storage.saveAdd(tasks, deadline);
+        deadline.mark();
+        storage.saveMark(tasks, List.of(1));
+        tasks.remove(0);
+        storage.saveDelete(tasks, List.of(0));
+        storage.flush();
+
+        List<Task> loaded = new Storage().load(file.getPath());
+        assertEquals(1, loaded.size());
+        assertEquals("[D][X] test2 (by: Wed, 1 Jan 2020)", loaded.get(0).toString());
+    }
+
+    @Test
+    void testJournalCompaction() throws Exception {
+        Storage storage = new Storage();
+        List<Task> tasks = new ArrayList<>();
+        storage.save(tasks, file.getPath());
+        for (int i = 0; i < Storage.COMPACTION_THRESHOLD; i++) {
+            Task task = new ToDo("task " + i);
+            tasks.add(task);
+            storage.saveAdd(tasks, task);
+        }
+        storage.flush();
+        MappedTaskList loaded = (MappedTaskList) new Storage().load(file.getPath());
+        assertEquals(Storage.COMPACTION_THRESHOLD, loaded.size());
+        // every task comes from the snapshot rather than being added back by the journal
+        assertEquals(0, loaded.decodedCount());
+    }
+
+    @Test
+    void testStaleJournal() throws Exception {
+        Storage storage = new Storage();
+        List<Task> tasks = new ArrayList<>(List.of(new ToDo("test")));
+        storage.save(tasks, file.getPath());
+        Task todo = new ToDo("test2");
+        tasks.add(todo);
+        storage.saveAdd(tasks, todo);
+        storage.flush();
+        File journal = new File(file.getPath() + ".journal");
+        byte[] stale = Files.readAllBytes(journal.toPath());
+
+        // a crash after the next snapshot is written, but before its journal is reset
+        storage.save(tasks);
+        storage.flush();
+        Files.write(journal.toPath(), stale);
+
+        assertEquals(tasks.toString(), new Storage().load(file.getPath()).toString());
+    }
+
+    @Test
+    void testSaveEncodesCopy() throws Exception {
+        List<Task> tasks = new ArrayList<>(List.of(new ToDo("test")));
+        Storage storage = new Storage();
+        storage.save(tasks, file.getPath());
+        // encoded by the writer thread later, from the tasks as they were saved
+        tasks.set(0, new ToDo("changed"));
+        tasks.add(new ToDo("test2"));
+        storage.flush();
+        List<Task> loaded = new Storage().load(file.getPath());
+        assertEquals(1, loaded.size());
+        assertEquals("test", loaded.get(0).getDesc());
+    }
+
+    @Test
+    void testCodecRoundTrip() throws Exception {
+        List<Task> tasks = new ArrayList<>(List.of(new ToDo("test"),
+                new Deadline("test2", "2020-01-01"),
+                new Event("t\u00e9st 3", "2020-01-01", "2020-01-02")));
+        tasks.get(2).mark();
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        TaskCodec.writeAll(bytes, tasks, 1);
+        List<Task> decoded = TaskCodec.readAll(new ByteArrayInputStream(bytes.toByteArray()));
+        assertEquals(tasks.toString(), decoded.toString());
+    }
+
+    @Test
+    void testLegacyMigration() throws Exception {
+        ArrayList<Task> tasks = new ArrayList<>(List.of(new ToDo("test"), new Deadline("test2", "2020-01-01")));
+        try (ObjectOutputStream oos = new ObjectOutputStream(new FileOutputStream(file))) {
+            oos.writeObject(tasks);
+        }
+        Storage storage = new Storage();
+        assertEquals(tasks.toString(), storage.load(file.getPath()).toString());
+        storage.flush();
+        try (FileInputStream fis = new FileInputStream(file)) {
+            assertEquals(tasks.toString(), TaskCodec.readAll(fis).toString());
+        }
+    }
+
+    @Test
+    void testVersion1Migration() throws Exception {
+        try (DataOutputStream out = new DataOutputStream(new FileOutputStream(file))) {
+            out.writeInt(TaskCodec.MAGIC);
+            out.writeByte(TaskCodec.VERSION_1);
+            out.writeInt(1);
+            TaskCodec.write(out, new ToDo("test"));
+        }
+        // a journal of the first version has no header, and starts with its first entry (here an add)
+        try (DataOutputStream out = new DataOutputStream(new FileOutputStream(file.getPath() + ".journal"))) {
+            out.writeByte(1);
+            TaskCodec.write(out, new Deadline("test2", "2020-01-01"));
+        }
+        Storage storage = new Storage();
+        List<Task> loaded = storage.load(file.getPath());
+        assertEquals("[[T][ ] test, [D][ ] test2 (by: Wed, 1 Jan 2020)]", loaded.toString());
+        storage.flush();
+        assertEquals(loaded.toString(), MappedTaskList.open(file.toPath()).toString());
+        assertEquals(loaded.toString(), new Storage().load(file.getPath()).toString());
+    }
+
+    @Test
+    void testLazyLoad() throws Exception {
+        List<Task> tasks = new ArrayList<>(List.of(new ToDo("test"),
+                new Deadline("test2", "2020-01-01"),
+                new Event("test3", "2020-01-01", "2020-01-02")));
+        Storage storage = new Storage();
+        storage.save(tasks, file.getPath());
+        storage.flush();
+        MappedTaskList loaded = (MappedTaskList) new Storage().load(file.getPath());
+        assertEquals(3, loaded.size());
+        assertEquals(0, loaded.decodedCount());
+        assertEquals(tasks.get(2).toString(), loaded.get(2).toString());
+        assertEquals(1, loaded.decodedCount());
+        loaded.remove(0);
+        assertEquals(tasks.get(1).toString(), loaded.get(0).toString());
+    }
+
+    @Test
+    void testLazyBulkDelete() throws Exception {
+        List<Task> tasks = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            tasks.add(new ToDo("task " + i));
+        }
+        Storage storage = new Storage();
+        storage.save(tasks, file.getPath());
+        Selection.of(0, 1, 500).removeFrom(tasks);
+        storage.saveDelete(tasks, List.of(500, 1, 0));
+        storage.flush();
+
+        MappedTaskList loaded = (MappedTaskList) new Storage().load(file.getPath());
+        // the journal's delete is replayed without decoding the tasks after the first deleted one
+        assertEquals(997, loaded.size());
+        assertEquals(0, loaded.decodedCount());
+        Selection.of(0, 10, 996).removeFrom(loaded);
+        assertEquals(994, loaded.size());
+        assertEquals(0, loaded.decodedCount());
+        assertEquals("task 3", loaded.get(0).getDesc());
+        assertEquals("task 14", loaded.get(10).getDesc());
+        assertEquals("task 998", loaded.get(993).getDesc());
+    }
+
+    @Test
+    void testParallelLazyLoad() throws Exception {
+        List<Task> tasks = new ArrayList<>();
+        for (int i = 0; i < 500; i++) {
+            tasks.add(new ToDo("task " + i));
+        }
+        Storage storage = new Storage();
+        storage.save(tasks, file.getPath());
+        storage.flush();
+        MappedTaskList loaded = MappedTaskList.open(file.toPath());
+        // every thread starts with a record that has yet to be indexed, and only every other task is read
+        List<String> descs = IntStream.range(0, loaded.size() / 2).parallel()
+                .mapToObj(i -> loaded.get(2 * i + 1).getDesc())
+                .collect(Collectors.toList());
+        assertEquals("task 1", descs.get(0));
+        assertEquals("task 499", descs.get(249));
+        assertEquals(250, loaded.decodedCount());
+    }
+}
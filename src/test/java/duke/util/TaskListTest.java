@@ -0,0 +1,351 @@
+package duke.util;
+
+import duke.task.Task;
+import duke.task.ToDo;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.LinkedList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TaskListTest {
+
+    private File file;
+    private TaskList taskList;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        file = File.createTempFile("duke", ".txt");
+        file.delete();
+        taskList = new TaskList(file.getPath());
+    }
+
+    @AfterEach
+    void tearDown() {
+        taskList.flush();
+        for (String suffix : List.of("", ".journal", ".index", ".history", ".tmp")) {
+            new File(file.getPath() + suffix).delete();
+        }
+    }
+
+    @Test
+    void testFind() {
+        taskList.addTodo("read book");
+        taskList.addTodo("return Book");
+        taskList.addTodo("buy bread");
+        assertEquals(List.of("2 matches found:", "\t1. [T][ ] read book", "\t2. [T][ ] return Book"),
+                taskList.find("BOOK"));
+        assertEquals(List.of("2 matches found:", "\t1. [T][ ] read book", "\t3. [T][ ] buy bread"),
+                taskList.find("EA"));
+        assertEquals(List.of("No matches found."), taskList.find("bookshelf"));
+
+        taskList.delete(new LinkedList<>(List.of("1")));
+        taskList.addTodo("read another book");
+        assertEquals(List.of("2 matches found:", "\t1. [T][ ] return Book", "\t3. [T][ ] read another book"),
+                taskList.find("book"));
+    }
+
+    @Test
+    void testPages() {
+        for (int i = 1; i <= 5; i++) {
+            taskList.addTodo("book " + i);
+        }
+        List<String> lines = new ArrayList<>();
+        taskList.stringify(lines::add, new Page(2, 2));
+        assertEquals(List.of("tasks (page 2 of 3): ", "\t3. [T][ ] book 3", "\t4. [T][ ] book 4"), lines);
+        lines.clear();
+        taskList.find("book", lines::add, new Page(3, 2));
+        assertEquals(List.of("5 matches found (page 3 of 3):", "\t5. [T][ ] book 5"), lines);
+        assertThrows(IllegalArgumentException.class, () -> taskList.stringify(lines::add, new Page(4, 2)));
+        assertThrows(IllegalArgumentException.class, () -> new Page(0, 2));
+        assertEquals(6, taskList.stringify().size());
+    }
+
+    @Test
+    void testColumnar() {
+        taskList.setHistoryLimit(0);
+        taskList.setColumnar(true);
+        taskList.addTodo("read book");
+        taskList.addDeadline("return Book", "2023-02-01");
+        taskList.addTodo("buy bread");
+        taskList.toggleMark(new LinkedList<>(List.of("2")), true);
+        assertEquals(List.of("2 matches found:", "\t1. [T][ ] read book", "\t2. [D][X] return Book (by: Wed, 1 Feb 2023)"),
+                taskList.find("BOOK"));
+        assertEquals(List.of("2 matches found:", "\t1. [T][ ] read book", "\t3. [T][ ] buy bread"),
+                taskList.find("EA"));
+        taskList.delete(new LinkedList<>(List.of("1")));
+        taskList.setColumnar(false);
+        assertEquals(List.of("tasks: ", "\t1. [D][X] return Book (by: Wed, 1 Feb 2023)", "\t2. [T][ ] buy bread"),
+                taskList.stringify());
+    }
+
+    @Test
+    void testRenderedLines() {
+        taskList.setHistoryLimit(0);
+        taskList.addTodo("read book");
+        taskList.addTodo("buy bread");
+        List<String> first = new ArrayList<>();
+        taskList.stringify(first::add, Page.ALL);
+        List<String> second = new ArrayList<>();
+        taskList.stringify(second::add, Page.ALL);
+        assertSame(first.get(1), second.get(1));
+        taskList.toggleMark(new LinkedList<>(List.of("1")), true);
+        assertEquals(List.of("tasks: ", "\t1. [T][X] read book", "\t2. [T][ ] buy bread"), taskList.stringify());
+        taskList.delete(new LinkedList<>(List.of("1")));
+        assertEquals(List.of("tasks: ", "\t1. [T][ ] buy bread"), taskList.stringify());
+    }
+
+    @Test
+    void testRanges() throws IOException, ClassNotFoundException {
+        taskList.setConcurrent(true);
+        for (int i = 1; i <= 100; i++) {
+            taskList.addTodo("task " + i);
+        }
+        taskList.find("task");
+        List<String> marked = new ArrayList<>(taskList.toggleMark(new LinkedList<>(List.of("1-30", "95")), true));
+        assertEquals(22, marked.size());
+        assertEquals("\t... and 11 more", marked.get(21));
+        List<String> deleted = new ArrayList<>(taskList.delete(new LinkedList<>(List.of("5-90", "2"))));
+        assertEquals("\t2. [T][X] task 2", deleted.get(1));
+        assertEquals("\t... and 67 more", deleted.get(21));
+        List<String> expected = List.of("tasks: ", "\t1. [T][X] task 1", "\t2. [T][X] task 3", "\t3. [T][X] task 4",
+                "\t4. [T][ ] task 91");
+        assertEquals(expected, new ArrayList<>(taskList.stringify()).subList(0, 5));
+        assertEquals(14, taskList.stringify().size());
+        assertEquals("13 matches found:", taskList.find("task").peek());
+        assertThrows(IllegalArgumentException.class, () -> taskList.delete(new LinkedList<>(List.of("1-14"))));
+        taskList.flush();
+        assertEquals(taskList.stringify(), new TaskList(file.getPath()).stringify());
+    }
+
+    @Test
+    void testQuery() {
+        taskList.addEvent("holiday cruise", "2023-02-23", "2023-03-10");
+        taskList.addTodo("make dinner");
+        taskList.addDeadline("do homework", "2022-02-02");
+        taskList.addDeadline("hand in report", "2026-11-30");
+        taskList.toggleMark(new LinkedList<>(List.of("4")), true);
+        List<String> lines = new ArrayList<>();
+        taskList.query(query("/type deadline /done false /before 2026-12-01"), false, lines::add, Page.ALL);
+        assertEquals(List.of("1 match found:", "\t3. [D][ ] do homework (by: Wed, 2 Feb 2022)"), lines);
+
+        lines.clear();
+        taskList.query(query("/before 2026-12-01 /sort by"), false, lines::add, Page.ALL);
+        assertEquals(List.of("3 matches found:", "\t3. [D][ ] do homework (by: Wed, 2 Feb 2022)",
+                "\t1. [E][ ] holiday cruise (from: Thu, 23 Feb 2023) (to: Fri, 10 Mar 2023)",
+                "\t4. [D][X] hand in report (by: Mon, 30 Nov 2026)"), lines);
+
+        lines.clear();
+        // sorted without filters, so listed as by list
+        taskList.query(query("/sort desc"), false, lines::add, new Page(1, 2));
+        assertEquals(List.of("tasks (page 1 of 2): ", "\t3. [D][ ] do homework (by: Wed, 2 Feb 2022)",
+                "\t4. [D][X] hand in report (by: Mon, 30 Nov 2026)"), lines);
+
+        lines.clear();
+        taskList.query(query("/done true"), true, lines::add, Page.ALL);
+        assertEquals(List.of("plan:", "\taccess: done bitmap (at most 1 of 4 tasks)", "\tfilter: done",
+                "\tsort: by index"), lines);
+        lines.clear();
+        // only the tasks dated before 2023, rather than every dated task
+        taskList.query(query("/before 2023-01-01"), true, lines::add, Page.ALL);
+        assertEquals("\taccess: date index (at most 1 of 4 tasks)", lines.get(1));
+        taskList.delete(new LinkedList<>(List.of("1")));
+        taskList.toggleMark(new LinkedList<>(List.of("1")), true);
+        lines.clear();
+        taskList.query(query("/done true /sort desc"), false, lines::add, Page.ALL);
+        assertEquals(List.of("2 matches found:", "\t3. [D][X] hand in report (by: Mon, 30 Nov 2026)",
+                "\t1. [T][X] make dinner"), lines);
+
+        lines.clear();
+        taskList.query(query("/match HOME /type todo"), true, lines::add, Page.ALL);
+        assertEquals("\taccess: trigram index (at most 1 of 3 tasks)", lines.get(1));
+        lines.clear();
+        taskList.query(query("/match HOME /type todo"), false, lines::add, Page.ALL);
+        assertEquals(List.of("No matches found."), lines);
+    }
+
+    private static Query query(String arguments) {
+        return Query.of(Parser.extractTokenArgs(Query.TOKENS, new LinkedList<>(List.of(arguments.split(" ")))));
+    }
+
+    @Test
+    void testDeferredSave() throws IOException, ClassNotFoundException {
+        taskList.addTodo("read book");
+        taskList.flush();
+        taskList.setSaveDeferred(true);
+        taskList.addTodo("return book");
+        taskList.delete(new LinkedList<>(List.of("1")));
+        assertEquals(List.of("1 match found:", "\t1. [T][ ] read book"), new TaskList(file.getPath()).find("book"));
+
+        taskList.save();
+        taskList.flush();
+        assertEquals(List.of("1 match found:", "\t1. [T][ ] return book"), new TaskList(file.getPath()).find("book"));
+    }
+
+    @Test
+    void testConcurrentReads() throws InterruptedException {
+        taskList.setConcurrent(true);
+        taskList.addTodo("read book");
+        taskList.addTodo("return book");
+        Thread writer = new Thread(() -> {
+            for (int i = 0; i < 2000; i++) {
+                taskList.toggleMark(new LinkedList<>(List.of("1", "2")), i % 2 == 0);
+                taskList.addTodo("buy book " + i);
+            }
+        });
+        writer.start();
+        while (writer.isAlive()) {
+            List<String> tasks = new ArrayList<>(taskList.stringify());
+            assertEquals(tasks.get(1).contains("[X]"), tasks.get(2).contains("[X]"));
+            List<String> matches = new ArrayList<>(taskList.find("bo"));
+            assertEquals((matches.size() - 1) + " matches found:", matches.get(0));
+        }
+        writer.join();
+        assertEquals(2003, taskList.stringify().size());
+    }
+
+    @Test
+    void testUndoRedo() throws IOException, ClassNotFoundException {
+        assertEquals(List.of("Nothing to undo."), taskList.undo());
+        taskList.addTodo("read book");
+        taskList.addTodo("return book");
+        taskList.toggleMark(new LinkedList<>(List.of("1")), true);
+        taskList.delete(new LinkedList<>(List.of("1", "2")));
+        assertEquals(List.of("undone: delete of 2 tasks"), taskList.undo());
+        assertEquals(List.of("undone: mark 1. [T][X] read book"), taskList.undo());
+        assertEquals(List.of("redone: mark 1. [T][X] read book"), taskList.redo());
+        assertEquals(List.of("tasks: ", "\t1. [T][X] read book", "\t2. [T][ ] return book"), taskList.stringify());
+        taskList.flush();
+
+        TaskList reloaded = new TaskList(file.getPath());
+        assertEquals(List.of("tasks: ", "\t1. [T][X] read book", "\t2. [T][ ] return book"), reloaded.stringify());
+        assertEquals(List.of("redone: delete of 2 tasks"), reloaded.redo());
+        assertEquals(List.of("No tasks found."), reloaded.stringify());
+        reloaded.undo();
+        reloaded.undo();
+        reloaded.undo();
+        assertEquals(List.of("tasks: ", "\t1. [T][ ] read book"), reloaded.stringify());
+        assertEquals(List.of("1 match found:", "\t1. [T][ ] read book"), reloaded.find("book"));
+        reloaded.addTodo("buy book");
+        assertEquals(List.of("Nothing to redo."), reloaded.redo());
+        reloaded.flush();
+    }
+
+    @Test
+    void testUndoLongTask() throws IOException, ClassNotFoundException {
+        String desc = "book ".repeat(20_000);
+        taskList.addTodo(desc);
+        taskList.flush();
+        TaskList reloaded = new TaskList(file.getPath());
+        assertEquals(List.of("undone: add [T][ ] " + desc), reloaded.undo());
+        assertEquals(List.of("No tasks found."), reloaded.stringify());
+        reloaded.flush();
+    }
+
+    @Test
+    void testUndoAfterOpen() throws IOException, ClassNotFoundException {
+        // the empty list of the setup is written first, so that it does not overwrite the tasks saved below
+        taskList.flush();
+        List<Task> tasks = new ArrayList<>();
+        for (int i = 1; i <= 1000; i++) {
+            tasks.add(new ToDo("task " + i));
+        }
+        Storage storage = new Storage();
+        storage.save(tasks, file.getPath());
+        storage.flush();
+
+        // the version before the first change reads its tasks from the snapshot as they are needed
+        TaskList opened = new TaskList(file.getPath());
+        opened.toggleMark(new LinkedList<>(List.of("500")), true);
+        opened.delete(new LinkedList<>(List.of("2-999")));
+        assertEquals(List.of("tasks: ", "\t1. [T][ ] task 1", "\t2. [T][ ] task 1000"), opened.stringify());
+        assertEquals(List.of("undone: delete of 998 tasks"), opened.undo());
+        assertEquals(1001, opened.stringify().size());
+        assertEquals(List.of("1 match found:", "\t500. [T][X] task 500"), opened.find("task 500"));
+        opened.flush();
+
+        TaskList reloaded = new TaskList(file.getPath());
+        assertEquals(List.of("undone: mark 500. [T][X] task 500"), reloaded.undo());
+        assertEquals(List.of("1 match found:", "\t500. [T][ ] task 500"), reloaded.find("task 500"));
+        assertEquals(List.of("redone: mark 500. [T][X] task 500"), reloaded.redo());
+        assertEquals(List.of("redone: delete of 998 tasks"), reloaded.redo());
+        assertEquals(3, reloaded.stringify().size());
+        reloaded.flush();
+    }
+
+    @Test
+    void testShortFindAfterOpen() throws IOException, ClassNotFoundException {
+        taskList.flush();
+        List<Task> tasks = new ArrayList<>();
+        for (int i = 0; i < 500; i++) {
+            tasks.add(new ToDo(i % 100 == 0 ? "zq " + i : "task " + i));
+        }
+        Storage storage = new Storage();
+        storage.save(tasks, file.getPath());
+        storage.flush();
+        // a fresh list, whose records have yet to be indexed
+        TaskList opened = new TaskList(file.getPath());
+        assertEquals(List.of("5 matches found:", "\t1. [T][ ] zq 0", "\t101. [T][ ] zq 100", "\t201. [T][ ] zq 200",
+                "\t301. [T][ ] zq 300", "\t401. [T][ ] zq 400"), opened.find("zq"));
+        opened.flush();
+    }
+
+    @Test
+    void testFindAfterReload() throws IOException, ClassNotFoundException {
+        taskList.addTodo("read book");
+        taskList.addTodo("return book");
+        taskList.find("book");
+        taskList.delete(new LinkedList<>(List.of("1")));
+        taskList.flush();
+        assertEquals(List.of("1 match found:", "\t1. [T][ ] return book"),
+                new TaskList(file.getPath()).find("book"));
+    }
+
+    @Test
+    void testDateQueries() {
+        taskList.addDeadline("homework", "2023-02-02");
+        taskList.addEvent("cruise", "2023-02-23", "2023-03-10");
+        taskList.addTodo("haircut");
+        taskList.addDeadline("birthday", "2023-04-17");
+        assertEquals(List.of("1 match found:", "\t1. [D][ ] homework (by: Thu, 2 Feb 2023)"),
+                taskList.dueBefore("2023-03-10"));
+        assertEquals(List.of("1 match found:", "\t2. [E][ ] cruise (from: Thu, 23 Feb 2023) (to: Fri, 10 Mar 2023)"),
+                taskList.between("2023-03-01", "2023-03-05"));
+        assertEquals(List.of("No matches found."), taskList.between("2023-03-11", "2023-04-16"));
+
+        taskList.delete(new LinkedList<>(List.of("1")));
+        taskList.addDeadline("report", "2023-03-01");
+        assertEquals(List.of("2 matches found:",
+                        "\t1. [E][ ] cruise (from: Thu, 23 Feb 2023) (to: Fri, 10 Mar 2023)",
+                        "\t4. [D][ ] report (by: Wed, 1 Mar 2023)"),
+                taskList.between(null, "2023-03-01"));
+        assertThrows(IllegalArgumentException.class, () -> taskList.between("2023-03-02", "2023-03-01"));
+    }
+
+    @Test
+    void testNext() {
+        assertEquals(List.of("No upcoming tasks."), taskList.next(""));
+        taskList.addDeadline("homework", "2023-02-02");
+        taskList.addEvent("cruise", "2023-02-23", "2023-03-10");
+        taskList.addTodo("haircut");
+        taskList.addDeadline("birthday", "2023-01-17");
+        assertEquals(List.of("upcoming tasks:",
+                        "\t4. [D][ ] birthday (by: Tue, 17 Jan 2023)",
+                        "\t1. [D][ ] homework (by: Thu, 2 Feb 2023)"),
+                taskList.next("2"));
+
+        taskList.toggleMark(new LinkedList<>(List.of("4")), true);
+        taskList.delete(new LinkedList<>(List.of("1")));
+        assertEquals(List.of("upcoming tasks:", "\t1. [E][ ] cruise (from: Thu, 23 Feb 2023) (to: Fri, 10 Mar 2023)"),
+                taskList.next("5"));
+        taskList.toggleMark(new LinkedList<>(List.of("3")), false);
+        assertEquals(List.of("upcoming tasks:", "\t3. [D][ ] birthday (by: Tue, 17 Jan 2023)"), taskList.next(""));
+        assertThrows(IllegalArgumentException.class, () -> taskList.next("0"));
+    }
+}